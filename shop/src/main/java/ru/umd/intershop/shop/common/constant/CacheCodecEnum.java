@@ -0,0 +1,12 @@
+package ru.umd.intershop.shop.common.constant;
+
+public enum CacheCodecEnum {
+    /**
+     * JSON через Jackson
+     */
+    JSON,
+    /**
+     * Компактный версионированный двоичный формат с опциональным сжатием LZ4
+     */
+    BINARY
+}
@@ -0,0 +1,12 @@
+package ru.umd.intershop.shop.common.constant;
+
+public enum CartStorageEnum {
+    /**
+     * Каждое изменение корзины сразу записывается в orders/order_items
+     */
+    DATABASE,
+    /**
+     * Корзина живёт в хэше Redis и записывается в БД только при оформлении заказа
+     */
+    REDIS
+}
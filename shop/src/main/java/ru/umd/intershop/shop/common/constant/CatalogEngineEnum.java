@@ -0,0 +1,12 @@
+package ru.umd.intershop.shop.common.constant;
+
+public enum CatalogEngineEnum {
+    /**
+     * Страницы каталога строятся запросами к БД через кэш в Redis
+     */
+    DATABASE,
+    /**
+     * Страницы каталога строятся по снимку активных товаров в памяти узла
+     */
+    MEMORY
+}
@@ -0,0 +1,21 @@
+package ru.umd.intershop.shop.common.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormatEnum {
+    /**
+     * Один JSON-объект товара на строку
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * CSV с заголовком по RFC 4180
+     */
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+
+    private final String fileExtension;
+}
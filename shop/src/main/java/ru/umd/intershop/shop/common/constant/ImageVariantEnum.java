@@ -0,0 +1,27 @@
+package ru.umd.intershop.shop.common.constant;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Уменьшенные копии изображения товара. Копия лежит в подкаталоге варианта под тем же именем
+ * файла, что и оригинал.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageVariantEnum {
+    /**
+     * Карточка в сетке каталога, корзине и заказе
+     */
+    THUMBNAIL("thumb"),
+    /**
+     * Страница товара
+     */
+    DETAIL("detail");
+
+    private final String directory;
+
+    public String path(String imageFileName) {
+        return "images/" + directory + "/" + imageFileName;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.umd.intershop.shop.common.constant;
+
+public enum PageCacheModeEnum {
+    /**
+     * Страница хранит полные копии товаров
+     */
+    FULL,
+    /**
+     * Страница хранит только упорядоченные id товаров, сами товары берутся из кэша товаров
+     */
+    IDS
+}
@@ -0,0 +1,12 @@
+package ru.umd.intershop.shop.common.constant;
+
+public enum PagingModeEnum {
+    /**
+     * Постраничный вывод через LIMIT/OFFSET
+     */
+    OFFSET,
+    /**
+     * Постраничный вывод по курсору "после (ключ сортировки, id)" без поиска
+     */
+    KEYSET
+}
@@ -0,0 +1,12 @@
+package ru.umd.intershop.shop.common.constant;
+
+public enum SearchModeEnum {
+    /**
+     * Поиск подстроки через ILIKE без дополнительной обработки запроса
+     */
+    LIKE,
+    /**
+     * Поиск по триграммному индексу pg_trgm с ранжированием по релевантности
+     */
+    TRIGRAM
+}
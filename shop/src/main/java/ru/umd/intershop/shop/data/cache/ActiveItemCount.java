@@ -0,0 +1,66 @@
+package ru.umd.intershop.shop.data.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Число активных товаров, закэшированное в Redis отдельно для каждого поколения каталога.
+ * Любая запись в каталог переводит его на новое поколение, поэтому счётчик не нужно
+ * ни обновлять, ни удалять явно: на промахе он пересчитывается один раз на поколение,
+ * а в пределах поколения - не реже, чем устаревают страницы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActiveItemCount {
+    private static final String KEY_PREFIX = "items:active-count:";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final CacheLoadCoalescer cacheLoadCoalescer;
+
+    private final CacheExpiry cacheExpiry;
+
+    /**
+     * @param counter подсчёт по БД, выполняется только при отсутствии значения в кэше
+     */
+    public Mono<Long> get(long generation, Supplier<Mono<Long>> counter) {
+        String key = KEY_PREFIX + generation;
+
+        return read(key)
+            .switchIfEmpty(
+                cacheLoadCoalescer.coalesce(
+                    key,
+                    () -> read(key),
+                    () -> Mono.defer(counter).flatMap(count -> write(key, count))
+                )
+            );
+    }
+
+    private Mono<Long> read(String key) {
+        return stringRedisTemplate
+            .opsForValue()
+            .get(key)
+            .map(Long::parseLong)
+            .onErrorResume(e -> {
+                log.warn("Ошибка при получении числа активных товаров из кэша: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Long> write(String key, long count) {
+        return stringRedisTemplate
+            .opsForValue()
+            .set(key, Long.toString(count), cacheExpiry.activeItemCountTtl())
+            .onErrorResume(e -> {
+                log.warn("Ошибка при сохранении числа активных товаров в кэш: {}", e.getMessage());
+                return Mono.just(false);
+            })
+            .thenReturn(count);
+    }
+}
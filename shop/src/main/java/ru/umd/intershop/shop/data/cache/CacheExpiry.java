@@ -0,0 +1,74 @@
+package ru.umd.intershop.shop.data.cache;
+
+import org.springframework.stereotype.Component;
+import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Сроки жизни записей кэша: TTL со случайным разбросом и мягкий TTL страниц
+ * для режима stale-while-revalidate.
+ */
+@Component
+public class CacheExpiry {
+    private final CacheProperties.Ttl properties;
+
+    public CacheExpiry(CacheProperties cacheProperties) {
+        this.properties = cacheProperties.getTtl();
+    }
+
+    public Duration itemTtl() {
+        return jittered(properties.getItem());
+    }
+
+    public Duration itemsPageTtl() {
+        return jittered(properties.getItemsPage());
+    }
+
+    /**
+     * Число активных товаров живёт не дольше мягкого TTL страниц и без разброса. Страница, обновляемая
+     * по мягкому TTL, записана не раньше использованного ею числа, поэтому к обновлению оно уже
+     * истекло и пересчитывается вместе с содержимым страницы. Без мягкого TTL число живёт
+     * не меньше любой страницы.
+     */
+    public Duration activeItemCountTtl() {
+        long softTtlSeconds = properties.getItemsPageSoft();
+        if (softTtlSeconds > 0) {
+            return Duration.ofSeconds(softTtlSeconds);
+        }
+
+        return maxItemsPageTtl();
+    }
+
+    /**
+     * Наибольший срок жизни страницы с учётом разброса
+     */
+    public Duration maxItemsPageTtl() {
+        return Duration.ofMillis(Math.round(properties.getItemsPage() * 1000 * (1 + jitterFraction())));
+    }
+
+    /**
+     * Страница устарела, если она старше мягкого TTL: её можно отдать, но нужно обновить в фоне
+     */
+    public boolean isStale(ItemPageCacheModel page) {
+        long softTtlMillis = properties.getItemsPageSoft() * 1000;
+        if (softTtlMillis <= 0) {
+            return false;
+        }
+
+        return System.currentTimeMillis() - page.createdAt() >= softTtlMillis;
+    }
+
+    private Duration jittered(long ttlSeconds) {
+        double jitter = jitterFraction();
+        double factor = jitter > 0 ? 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter) : 1;
+
+        return Duration.ofMillis(Math.max(1, Math.round(ttlSeconds * 1000 * factor)));
+    }
+
+    private double jitterFraction() {
+        return Math.min(Math.max(properties.getJitter(), 0), 0.5);
+    }
+}
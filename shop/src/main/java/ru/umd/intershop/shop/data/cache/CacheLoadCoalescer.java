@@ -0,0 +1,146 @@
+package ru.umd.intershop.shop.data.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Объединяет одновременные промахи кэша по одному ключу в одну загрузку (single-flight).
+ * Внутри узла параллельные запросы получают общий {@link Mono}. Опционально загрузка
+ * защищается короткой блокировкой в Redis, и остальные узлы дожидаются появления значения в кэше.
+ */
+@Slf4j
+@Component
+public class CacheLoadCoalescer {
+    private static final String LOCK_KEY_PREFIX = "items:lock:";
+
+    /**
+     * Снимает блокировку, только если она всё ещё принадлежит этому узлу
+     */
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = RedisScript.of(
+        """
+        if redis.call('get', KEYS[1]) == ARGV[1] then
+            return redis.call('del', KEYS[1])
+        end
+        return 0
+        """,
+        Long.class
+    );
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final CacheProperties.Coalescing properties;
+
+    public CacheLoadCoalescer(ReactiveStringRedisTemplate stringRedisTemplate, CacheProperties cacheProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = cacheProperties.getCoalescing();
+    }
+
+    /**
+     * @param key         ключ кэша, по которому объединяются загрузки
+     * @param cacheLookup повторное чтение из кэша, пока значение загружает другой узел
+     * @param loader      загрузка из БД с записью результата в кэш
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String key, Supplier<Mono<T>> cacheLookup, Supplier<Mono<T>> loader) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(loader);
+        }
+
+        return Mono.defer(() -> (Mono<T>) inFlight.computeIfAbsent(key, k -> share(k, cacheLookup, loader)));
+    }
+
+    /**
+     * Фоновое обновление значения, которое ещё отдаётся из кэша. Пока обновление ключа идёт,
+     * повторные вызовы на этом узле сразу завершаются пустым результатом, даже если объединение
+     * загрузок выключено: каждое обращение к устаревшему значению не должно запускать свою загрузку.
+     */
+    public <T> Mono<T> refresh(String key, Supplier<Mono<T>> cacheLookup, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            if (!refreshing.add(key)) {
+                log.debug("Ключ {} уже обновляется", key);
+                return Mono.empty();
+            }
+
+            return coalesce(key, cacheLookup, loader)
+                .doFinally(signal -> refreshing.remove(key));
+        });
+    }
+
+    private <T> Mono<T> share(String key, Supplier<Mono<T>> cacheLookup, Supplier<Mono<T>> loader) {
+        Mono<T> load = properties.isDistributedLock() ?
+            loadUnderLock(key, cacheLookup, loader) :
+            Mono.defer(loader);
+
+        // Удаляется только своя запись: после ошибки или отмены ключ мог уже занять новый запрос
+        AtomicReference<Mono<T>> shared = new AtomicReference<>();
+        shared.set(load
+                       .doFinally(signal -> inFlight.remove(key, shared.get()))
+                       .cache());
+        return shared.get();
+    }
+
+    private <T> Mono<T> loadUnderLock(String key, Supplier<Mono<T>> cacheLookup, Supplier<Mono<T>> loader) {
+        String lockKey = LOCK_KEY_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        Duration lockTtl = Duration.ofMillis(properties.getLockTtlMillis());
+
+        return stringRedisTemplate
+            .opsForValue()
+            .setIfAbsent(lockKey, token, lockTtl)
+            .onErrorResume(e -> {
+                log.warn("Не удалось получить блокировку загрузки {}: {}", lockKey, e.getMessage());
+                return Mono.just(true);
+            })
+            .flatMap(acquired -> {
+                if (acquired) {
+                    return Mono.defer(loader)
+                        .flatMap(value -> releaseLock(lockKey, token).thenReturn(value))
+                        .switchIfEmpty(releaseLock(lockKey, token).then(Mono.<T>empty()))
+                        .onErrorResume(e -> releaseLock(lockKey, token).then(Mono.<T>error(e)));
+                }
+
+                log.debug("Ключ {} загружается другим узлом, ожидание появления в кэше", key);
+                return awaitOtherNode(cacheLookup, loader);
+            });
+    }
+
+    /**
+     * Ждёт, пока значение положит в кэш узел, захвативший блокировку.
+     * Если за время жизни блокировки значение не появилось, загружает его самостоятельно.
+     */
+    private <T> Mono<T> awaitOtherNode(Supplier<Mono<T>> cacheLookup, Supplier<Mono<T>> loader) {
+        Duration interval = Duration.ofMillis(properties.getLockWaitIntervalMillis());
+        long attempts = Math.max(1, properties.getLockTtlMillis() / properties.getLockWaitIntervalMillis());
+
+        return Mono.defer(cacheLookup)
+            .repeatWhenEmpty(repeats -> repeats.take(attempts).delayElements(interval))
+            .switchIfEmpty(Mono.defer(loader));
+    }
+
+    private Mono<Void> releaseLock(String lockKey, String token) {
+        return stringRedisTemplate
+            .execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), List.of(token))
+            .onErrorResume(e -> {
+                log.warn("Не удалось снять блокировку {}: {}", lockKey, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.umd.intershop.shop.data.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.data.config.CartProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Корзины посетителей в Redis: хэш {@code cart:<sessionId>} вида "id товара -> количество".
+ * Каждое обращение продлевает жизнь корзины, заброшенные корзины удаляет сам Redis.
+ * В отличие от кэша каталога, здесь Redis - основное хранилище, поэтому ошибки не скрываются.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartStore {
+    private static final String KEY_PREFIX = "cart:";
+
+    /**
+     * Меняет количество товара, не опуская его ниже нуля, и продлевает корзину за одно обращение
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of(
+        """
+        local count = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2])
+        if count < 0 then
+            count = 0
+            redis.call('hset', KEYS[1], ARGV[1], count)
+        end
+        redis.call('pexpire', KEYS[1], ARGV[3])
+        return count
+        """,
+        Long.class
+    );
+
+    /**
+     * Вычитает оформленные количества и удаляет позиции, которые от них не выросли. Товары,
+     * добавленные после чтения корзины для оформления, остаются в ней.
+     */
+    private static final RedisScript<Long> REMOVE_CHECKED_OUT_SCRIPT = RedisScript.of(
+        """
+        for i = 1, #ARGV, 2 do
+            local count = redis.call('hincrby', KEYS[1], ARGV[i], -tonumber(ARGV[i + 1]))
+            if count <= 0 then
+                redis.call('hdel', KEYS[1], ARGV[i])
+            end
+        end
+        return redis.call('hlen', KEYS[1])
+        """,
+        Long.class
+    );
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final CartProperties cartProperties;
+
+    public Mono<Map<Long, Integer>> entries(String sessionId) {
+        String key = KEY_PREFIX + sessionId;
+
+        return stringRedisTemplate
+            .<String, String>opsForHash()
+            .entries(key)
+            .collectMap(entry -> Long.valueOf(entry.getKey()), entry -> Integer.valueOf(entry.getValue()))
+            .flatMap(counts -> counts.isEmpty() ?
+                Mono.just(counts) :
+                stringRedisTemplate.expire(key, cartProperties.getStorage().getTtl()).thenReturn(counts));
+    }
+
+    public Mono<Long> increment(String sessionId, Long itemId, long delta) {
+        return stringRedisTemplate
+            .execute(
+                INCREMENT_SCRIPT,
+                List.of(KEY_PREFIX + sessionId),
+                List.of(
+                    itemId.toString(),
+                    Long.toString(delta),
+                    Long.toString(cartProperties.getStorage().getTtl().toMillis())
+                )
+            )
+            .next();
+    }
+
+    public Mono<Void> remove(String sessionId, Long itemId) {
+        String key = KEY_PREFIX + sessionId;
+
+        return stringRedisTemplate
+            .<String, String>opsForHash()
+            .remove(key, itemId.toString())
+            .then(stringRedisTemplate.expire(key, cartProperties.getStorage().getTtl()))
+            .then();
+    }
+
+    /**
+     * Убирает из корзины оформленный снимок позиций вместо удаления всей корзины
+     */
+    public Mono<Void> removeCheckedOut(String sessionId, Map<Long, Integer> counts) {
+        if (counts.isEmpty()) {
+            return Mono.empty();
+        }
+
+        List<String> args = new ArrayList<>(counts.size() * 2);
+        counts.forEach((itemId, count) -> {
+            args.add(itemId.toString());
+            args.add(count.toString());
+        });
+
+        return stringRedisTemplate
+            .execute(REMOVE_CHECKED_OUT_SCRIPT, List.of(KEY_PREFIX + sessionId), args)
+            .then();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.umd.intershop.shop.data.cache;
+
+import java.util.Set;
+
+/**
+ * Лента изменений перевела каталог на новое поколение из-за записи мимо приложения.
+ * Пустой набор товаров означает, что уведомления могли быть пропущены.
+ */
+public record CatalogChangedEvent(
+    long generation,
+    Set<Long> itemIds
+) {
+}
@@ -0,0 +1,51 @@
+package ru.umd.intershop.shop.data.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Номер поколения каталога, хранящийся в Redis. Входит в ключи кэша страниц, поэтому
+ * инвалидация всех страниц сводится к одному INCR: записи прошлых поколений больше не читаются
+ * и удаляются Redis по истечении TTL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogGeneration {
+    public static final String GENERATION_KEY = "items:generation";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final ItemNearCache itemNearCache;
+
+    public Mono<Long> current() {
+        return itemNearCache
+            .getGeneration()
+            .switchIfEmpty(
+                stringRedisTemplate
+                    .opsForValue()
+                    .get(GENERATION_KEY)
+                    .map(Long::parseLong)
+                    .defaultIfEmpty(0L)
+                    .doOnNext(itemNearCache::putGeneration)
+            )
+            .onErrorResume(e -> {
+                log.warn("Ошибка при получении поколения каталога: {}", e.getMessage());
+                return Mono.just(0L);
+            });
+    }
+
+    /**
+     * Переводит каталог на новое поколение и оповещает остальные узлы
+     */
+    public Mono<Long> increment() {
+        return stringRedisTemplate
+            .opsForValue()
+            .increment(GENERATION_KEY)
+            .doOnNext(generation -> log.info("Каталог переведён на поколение {}", generation))
+            .flatMap(generation -> itemNearCache.invalidatePages().thenReturn(generation));
+    }
+}
@@ -0,0 +1,227 @@
+package ru.umd.intershop.shop.data.cache;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactories;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcConnectionDetails;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Инвалидация кэша по уведомлениям Postgres (LISTEN/NOTIFY) об изменениях в таблице товаров,
+ * включая изменения мимо приложения. Уведомления получает каждый узел: все они удаляют
+ * изменённые товары из кэша, а поколение каталога переключает только узел, первым
+ * занявший транзакцию изменения в Redis. Изменения, не влияющие на состав и порядок страниц,
+ * поколение не переключают: занявший узел обновляет товары в закэшированных страницах.
+ * Транзакции, записанные самим приложением, занимаются заранее: поколение для них
+ * переключает пишущий код.
+ */
+@Slf4j
+@Component
+public class ItemChangeFeed {
+    private static final String CHANNEL = "items_changes";
+
+    private static final String CLAIM_KEY_PREFIX = "items:change:";
+
+    private static final Duration CLAIM_TTL = Duration.ofMinutes(1);
+
+    private final R2dbcConnectionDetails connectionDetails;
+
+    private final DatabaseClient databaseClient;
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final ItemNearCache itemNearCache;
+
+    private final CatalogGeneration catalogGeneration;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CacheProperties.ChangeFeed properties;
+
+    private final AtomicBoolean listenedBefore = new AtomicBoolean();
+
+    private Disposable subscription;
+
+    public ItemChangeFeed(
+        R2dbcConnectionDetails connectionDetails,
+        DatabaseClient databaseClient,
+        ReactiveStringRedisTemplate stringRedisTemplate,
+        ItemNearCache itemNearCache,
+        CatalogGeneration catalogGeneration,
+        ApplicationEventPublisher eventPublisher,
+        CacheProperties cacheProperties
+    ) {
+        this.connectionDetails = connectionDetails;
+        this.databaseClient = databaseClient;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.itemNearCache = itemNearCache;
+        this.catalogGeneration = catalogGeneration;
+        this.eventPublisher = eventPublisher;
+        this.properties = cacheProperties.getChangeFeed();
+    }
+
+    /**
+     * Подписка оформляется после старта приложения, когда миграции с триггером уже применены.
+     * Для LISTEN нужно отдельное соединение вне пула: оно занято на всё время работы узла.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        subscription = Flux
+            .usingWhen(
+                Mono.from(ConnectionFactories.get(connectionDetails.getConnectionFactoryOptions()).create())
+                    .cast(PostgresqlConnection.class),
+                this::listen,
+                PostgresqlConnection::close
+            )
+            .bufferTimeout(properties.getBatchSize(), Duration.ofMillis(properties.getDebounceMillis()))
+            .concatMap(this::applyChanges)
+            .doOnError(e -> log.warn("Потеряна подписка на изменения товаров: {}", e.getMessage()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Занимает текущую транзакцию записи от имени приложения, чтобы уведомления о ней не переключали
+     * поколение каталога второй раз. Вызывается внутри транзакции до её фиксации: уведомления
+     * доставляются только после фиксации и застают транзакцию уже занятой.
+     */
+    public Mono<Void> claimCurrentTransaction() {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+
+        return databaseClient
+            .sql("SELECT txid_current()")
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .flatMap(transaction -> stringRedisTemplate
+                .opsForValue()
+                .setIfAbsent(CLAIM_KEY_PREFIX + transaction, "1", CLAIM_TTL))
+            .onErrorResume(e -> {
+                log.warn("Не удалось занять транзакцию записи товаров: {}", e.getMessage());
+                return Mono.just(false);
+            })
+            .then();
+    }
+
+    private Flux<Notification> listen(PostgresqlConnection connection) {
+        return connection
+            .createStatement("LISTEN " + CHANNEL)
+            .execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .then(resyncAfterReconnect())
+            .doOnSuccess(ignored -> log.info("Подписка на изменения товаров в канале {} оформлена", CHANNEL))
+            .thenMany(connection.getNotifications());
+    }
+
+    /**
+     * Пока соединения не было, уведомления терялись, поэтому после переподключения каталог
+     * переводится на новое поколение. При первой подписке терять было нечего.
+     */
+    private Mono<Void> resyncAfterReconnect() {
+        if (!listenedBefore.compareAndSet(false, true)) {
+            return catalogGeneration
+                .increment()
+                .doOnNext(generation -> eventPublisher.publishEvent(new CatalogChangedEvent(generation, Set.of())))
+                .then();
+        }
+        return Mono.empty();
+    }
+
+    private Mono<Void> applyChanges(List<Notification> notifications) {
+        Set<Long> itemIds = new HashSet<>();
+        Set<Long> structuralItemIds = new HashSet<>();
+        Set<String> transactions = new HashSet<>();
+
+        for (Notification notification : notifications) {
+            String[] parts = notification.getParameter() != null ? notification.getParameter().split(":") : new String[0];
+            // Уведомления без признака структуры (старый триггер) считаются структурными
+            if (parts.length != 3 && parts.length != 4) {
+                log.warn("Некорректное уведомление об изменении товара: {}", notification.getParameter());
+                continue;
+            }
+
+            try {
+                Long itemId = Long.parseLong(parts[1]);
+                itemIds.add(itemId);
+                if (parts.length == 3 || !"0".equals(parts[3])) {
+                    structuralItemIds.add(itemId);
+                }
+                transactions.add(parts[2]);
+            } catch (NumberFormatException e) {
+                log.warn("Некорректное уведомление об изменении товара: {}", notification.getParameter());
+            }
+        }
+
+        if (itemIds.isEmpty()) {
+            return Mono.empty();
+        }
+
+        log.debug("Изменены товары {} в транзакциях {}, со сменой состава страниц {}", itemIds, transactions, structuralItemIds);
+        itemNearCache.evictItems(itemIds);
+
+        return stringRedisTemplate
+            .delete(itemIds.stream().map(String::valueOf).toArray(String[]::new))
+            .then(claimAny(transactions))
+            .flatMap(claimed -> {
+                if (!structuralItemIds.isEmpty()) {
+                    return claimed ?
+                        catalogGeneration
+                            .increment()
+                            .doOnNext(generation -> eventPublisher.publishEvent(new CatalogChangedEvent(generation, Set.copyOf(itemIds))))
+                            .then() :
+                        Mono.<Void>empty();
+                }
+
+                // Состав страниц не изменился: поколение сохраняется, товары обновляются на месте
+                eventPublisher.publishEvent(new ItemContentChangedEvent(Set.copyOf(itemIds), claimed));
+                return Mono.<Void>empty();
+            })
+            .onErrorResume(e -> {
+                log.warn("Ошибка при инвалидации кэша по изменениям товаров: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Поколение переключается один раз на транзакцию, а не каждым узлом, получившим уведомление
+     */
+    private Mono<Boolean> claimAny(Set<String> transactions) {
+        return Flux.fromIterable(transactions)
+            .flatMap(transaction -> stringRedisTemplate
+                .opsForValue()
+                .setIfAbsent(CLAIM_KEY_PREFIX + transaction, "1", CLAIM_TTL))
+            .any(Boolean::booleanValue)
+            .onErrorReturn(true);
+    }
+}
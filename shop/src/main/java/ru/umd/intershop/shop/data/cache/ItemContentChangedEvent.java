@@ -0,0 +1,14 @@
+package ru.umd.intershop.shop.data.cache;
+
+import java.util.Set;
+
+/**
+ * Лента изменений получила изменения товаров, не затрагивающие состав и порядок страниц каталога,
+ * поэтому поколение не переключалось. Закэшированные страницы с этими товарами обновляет
+ * только узел, занявший транзакцию изменения.
+ */
+public record ItemContentChangedEvent(
+    Set<Long> itemIds,
+    boolean refreshSharedCache
+) {
+}
@@ -0,0 +1,204 @@
+package ru.umd.intershop.shop.data.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
+import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Локальный кэш первого уровня для товаров и страниц каталога, расположенный перед Redis.
+ * Согласованность между экземплярами магазина поддерживается сообщениями об инвалидации
+ * через Redis pub/sub: каждый узел публикует свои изменения и применяет чужие.
+ */
+@Slf4j
+@Component
+public class ItemNearCache {
+    public static final String INVALIDATION_CHANNEL = "items:invalidation";
+
+    private static final String PAGES_MESSAGE = "pages";
+
+    private static final String ITEM_MESSAGE_PREFIX = "item:";
+
+    private static final String PAGE_MESSAGE_PREFIX = "page:";
+
+    private static final String GENERATION_KEY = "generation";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final boolean enabled;
+
+    private final Cache<Long, ItemCacheModel> items;
+
+    private final Cache<String, ItemPageCacheModel> pages;
+
+    private final Cache<String, Long> generation;
+
+    private Disposable invalidationSubscription;
+
+    public ItemNearCache(ReactiveStringRedisTemplate stringRedisTemplate, CacheProperties cacheProperties) {
+        CacheProperties.Local local = cacheProperties.getLocal();
+
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = local.isEnabled();
+        this.items = Caffeine.newBuilder()
+            .maximumSize(local.getMaxItems())
+            .expireAfterWrite(Duration.ofSeconds(local.getTtl()))
+            .build();
+        this.pages = Caffeine.newBuilder()
+            .maximumSize(local.getMaxPages())
+            .expireAfterWrite(Duration.ofSeconds(local.getTtl()))
+            .build();
+        this.generation = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(local.getTtl()))
+            .build();
+    }
+
+    @PostConstruct
+    public void subscribeToInvalidations() {
+        if (!enabled) {
+            return;
+        }
+
+        invalidationSubscription = stringRedisTemplate
+            .listenToChannel(INVALIDATION_CHANNEL)
+            // Пока подписки не было, сообщения могли потеряться, поэтому начинаем с чистого кэша
+            .doOnSubscribe(subscription -> clearLocal())
+            .map(ReactiveSubscription.Message::getMessage)
+            .doOnNext(this::applyInvalidation)
+            .doOnError(e -> log.warn("Потеряна подписка на инвалидацию кэша: {}", e.getMessage()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void unsubscribeFromInvalidations() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+
+    /**
+     * Локальный кэш читается при подписке, а не при сборке цепочки: повторная подписка
+     * (retry, repeat) видит актуальное значение
+     */
+    public Mono<ItemCacheModel> getItem(Long id) {
+        return enabled ? Mono.fromSupplier(() -> items.getIfPresent(id)) : Mono.empty();
+    }
+
+    /**
+     * Возвращает только те товары из переданных, которые есть в локальном кэше
+     */
+    public Map<Long, ItemCacheModel> getItems(Collection<Long> ids) {
+        return enabled ? items.getAllPresent(ids) : Map.of();
+    }
+
+    public void putItem(Long id, ItemCacheModel item) {
+        if (enabled) {
+            items.put(id, item);
+        }
+    }
+
+    public Mono<ItemPageCacheModel> getPage(String key) {
+        return enabled ? Mono.fromSupplier(() -> pages.getIfPresent(key)) : Mono.empty();
+    }
+
+    public void putPage(String key, ItemPageCacheModel page) {
+        if (enabled) {
+            pages.put(key, page);
+        }
+    }
+
+    public Mono<Long> getGeneration() {
+        return enabled ? Mono.fromSupplier(() -> generation.getIfPresent(GENERATION_KEY)) : Mono.empty();
+    }
+
+    public void putGeneration(Long value) {
+        if (enabled) {
+            generation.put(GENERATION_KEY, value);
+        }
+    }
+
+    /**
+     * Удаляет товар из локального кэша и оповещает остальные узлы
+     */
+    public Mono<Void> invalidateItem(Long id) {
+        return Mono.fromRunnable(() -> items.invalidate(id))
+            .then(publish(ITEM_MESSAGE_PREFIX + id));
+    }
+
+    /**
+     * Удаляет товары только из локального кэша, без оповещения остальных узлов
+     */
+    public void evictItems(Collection<Long> ids) {
+        items.invalidateAll(ids);
+    }
+
+    /**
+     * Удаляет все страницы и поколение каталога из локального кэша и оповещает остальные узлы
+     */
+    public Mono<Void> invalidatePages() {
+        return Mono.fromRunnable(this::clearPages)
+            .then(publish(PAGES_MESSAGE));
+    }
+
+    /**
+     * Удаляет перечисленные страницы из локального кэша и оповещает остальные узлы
+     */
+    public Mono<Void> invalidatePages(Collection<String> keys) {
+        return Mono.fromRunnable(() -> pages.invalidateAll(keys))
+            .thenMany(Flux.fromIterable(keys))
+            .concatMap(key -> publish(PAGE_MESSAGE_PREFIX + key))
+            .then();
+    }
+
+    private Mono<Void> publish(String message) {
+        return stringRedisTemplate
+            .convertAndSend(INVALIDATION_CHANNEL, message)
+            .onErrorResume(e -> {
+                log.warn("Не удалось опубликовать инвалидацию кэша '{}': {}", message, e.getMessage());
+                return Mono.just(0L);
+            })
+            .then();
+    }
+
+    private void applyInvalidation(String message) {
+        log.debug("Получено сообщение об инвалидации кэша: {}", message);
+
+        if (PAGES_MESSAGE.equals(message)) {
+            clearPages();
+        } else if (message.startsWith(ITEM_MESSAGE_PREFIX)) {
+            try {
+                items.invalidate(Long.parseLong(message.substring(ITEM_MESSAGE_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                log.warn("Некорректное сообщение об инвалидации кэша: {}", message);
+            }
+        } else if (message.startsWith(PAGE_MESSAGE_PREFIX)) {
+            pages.invalidate(message.substring(PAGE_MESSAGE_PREFIX.length()));
+        }
+    }
+
+    private void clearPages() {
+        generation.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    private void clearLocal() {
+        items.invalidateAll();
+        clearPages();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.umd.intershop.shop.data.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Обратный индекс "товар -> ключи закэшированных страниц, в которых он присутствует".
+ * Для каждого товара хранится множество {@code items:page-index:<id>}, живущее не дольше страниц.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemPageIndex {
+    private static final String KEY_PREFIX = "items:page-index:";
+
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+
+    private final CacheExpiry cacheExpiry;
+
+    public Mono<Void> register(String pageKey, Collection<Long> itemIds) {
+        // Команды отправляются без ожидания ответов и уходят в Redis одним пайплайном
+        return Flux.fromIterable(itemIds)
+            .flatMap(itemId -> {
+                String indexKey = KEY_PREFIX + itemId;
+                return stringRedisTemplate.opsForSet().add(indexKey, pageKey)
+                    .then(stringRedisTemplate.expire(indexKey, cacheExpiry.maxItemsPageTtl()));
+            })
+            .then();
+    }
+
+    public Mono<List<String>> pagesOf(Long itemId) {
+        return stringRedisTemplate
+            .opsForSet()
+            .members(KEY_PREFIX + itemId)
+            .collectList();
+    }
+
+    public Mono<Void> remove(Long itemId, Collection<String> pageKeys) {
+        if (pageKeys.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return stringRedisTemplate
+            .opsForSet()
+            .remove(KEY_PREFIX + itemId, pageKeys.toArray())
+            .then();
+    }
+}
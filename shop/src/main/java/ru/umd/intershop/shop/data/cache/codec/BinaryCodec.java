@@ -0,0 +1,24 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Двоичное представление модели кэша. Новые поля добавляются только в конец записи
+ * с увеличением версии: читатель старой версии игнорирует лишний хвост, а читатель новой
+ * версии подставляет значения по умолчанию для полей, которых не было в записанной версии.
+ */
+public interface BinaryCodec<T> {
+    /**
+     * Текущая версия формата, с которой пишутся записи
+     */
+    int version();
+
+    void write(T value, DataOutputStream out) throws IOException;
+
+    /**
+     * @param version версия формата, с которой запись была сделана
+     */
+    T read(DataInputStream in, int version) throws IOException;
+}
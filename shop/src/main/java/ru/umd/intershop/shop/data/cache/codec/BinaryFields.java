@@ -0,0 +1,175 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кодирование полей двоичного формата кэша: длины и числа пишутся как varint,
+ * пустые значения кодируются нулевой длиной без отдельного признака
+ */
+final class BinaryFields {
+    private BinaryFields() {
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Некорректный varint");
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+
+        return new String(readBytes(in, length - 1), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Число хранится как масштаб и байты немасштабированного значения,
+     * что заметно короче строкового представления Jackson
+     */
+    static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeVarInt(out, unscaled.length);
+        out.write(unscaled);
+        writeVarInt(out, value.scale());
+    }
+
+    static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+
+        BigInteger unscaled = new BigInteger(readBytes(in, length));
+        return new BigDecimal(unscaled, readVarInt(in));
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Некорректный varint");
+    }
+
+    /**
+     * Каждое число пишется разностью с предыдущим в zigzag-varint: id страницы без сортировки
+     * идут по возрастанию и занимают по байту-два, а разности другого знака тоже остаются короткими
+     */
+    static void writeDeltaLongList(DataOutputStream out, List<Long> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        writeVarInt(out, values.size() + 1);
+        long previous = 0;
+        for (Long value : values) {
+            long delta = value - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = value;
+        }
+    }
+
+    static List<Long> readDeltaLongList(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+
+        List<Long> values = new ArrayList<>(size - 1);
+        long previous = 0;
+        for (int i = 0; i < size - 1; i++) {
+            long zigzag = readVarLong(in);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values.add(previous);
+        }
+        return values;
+    }
+
+    /**
+     * Список из восьмибайтовых чисел, как его писали версии формата до перехода на varint
+     */
+    static List<Long> readFixedLongList(DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+
+        List<Long> values = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            values.add(in.readLong());
+        }
+        return values;
+    }
+
+    /**
+     * Пишет вложенную запись с префиксом длины, чтобы читатель мог пропустить незнакомые ему поля в её конце
+     */
+    static <T> void writeRecord(DataOutputStream out, BinaryCodec<T> codec, T value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        codec.write(value, new DataOutputStream(buffer));
+        writeVarInt(out, buffer.size());
+        buffer.writeTo(out);
+    }
+
+    static <T> T readRecord(DataInputStream in, BinaryCodec<T> codec, int version) throws IOException {
+        byte[] record = readBytes(in, readVarInt(in));
+        return codec.read(new DataInputStream(new ByteArrayInputStream(record)), version);
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
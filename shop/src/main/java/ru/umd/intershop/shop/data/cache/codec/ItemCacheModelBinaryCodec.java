@@ -0,0 +1,36 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class ItemCacheModelBinaryCodec implements BinaryCodec<ItemCacheModel> {
+    private static final int VERSION = 1;
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(ItemCacheModel value, DataOutputStream out) throws IOException {
+        BinaryFields.writeString(out, value.id());
+        BinaryFields.writeString(out, value.name());
+        BinaryFields.writeDecimal(out, value.price());
+        BinaryFields.writeString(out, value.description());
+        BinaryFields.writeString(out, value.imageFileName());
+    }
+
+    @Override
+    public ItemCacheModel read(DataInputStream in, int version) throws IOException {
+        return new ItemCacheModel(
+            BinaryFields.readString(in),
+            BinaryFields.readString(in),
+            BinaryFields.readDecimal(in),
+            BinaryFields.readString(in),
+            BinaryFields.readString(in)
+        );
+    }
+}
@@ -0,0 +1,82 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
+import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ItemPageCacheModelBinaryCodec implements BinaryCodec<ItemPageCacheModel> {
+    private static final int VERSION = 3;
+
+    private final BinaryCodec<ItemCacheModel> itemCodec;
+
+    public ItemPageCacheModelBinaryCodec(BinaryCodec<ItemCacheModel> itemCodec) {
+        this.itemCodec = itemCodec;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(ItemPageCacheModel value, DataOutputStream out) throws IOException {
+        // Версия товаров пишется один раз на страницу, каждый товар - отдельной записью с длиной
+        List<ItemCacheModel> items = value.items() != null ? value.items() : List.of();
+        out.writeByte(itemCodec.version());
+        BinaryFields.writeVarInt(out, items.size());
+        for (ItemCacheModel item : items) {
+            BinaryFields.writeRecord(out, itemCodec, item);
+        }
+
+        BinaryFields.writeVarInt(out, value.totalItems());
+        BinaryFields.writeVarInt(out, value.totalPages());
+        BinaryFields.writeVarInt(out, value.page());
+        BinaryFields.writeVarInt(out, value.pageSize());
+        BinaryFields.writeString(out, value.sortField());
+        BinaryFields.writeString(out, value.searchQuery());
+        out.writeLong(value.createdAt());
+
+        // Версия 2: упорядоченные id нормализованной страницы, с версии 3 - разностями в varint
+        BinaryFields.writeDeltaLongList(out, value.itemIds());
+    }
+
+    @Override
+    public ItemPageCacheModel read(DataInputStream in, int version) throws IOException {
+        int itemVersion = in.readUnsignedByte();
+        int itemCount = BinaryFields.readVarInt(in);
+        List<ItemCacheModel> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(BinaryFields.readRecord(in, itemCodec, itemVersion));
+        }
+
+        int totalItems = BinaryFields.readVarInt(in);
+        int totalPages = BinaryFields.readVarInt(in);
+        int page = BinaryFields.readVarInt(in);
+        int pageSize = BinaryFields.readVarInt(in);
+        String sortField = BinaryFields.readString(in);
+        String searchQuery = BinaryFields.readString(in);
+        long createdAt = in.readLong();
+        List<Long> itemIds = switch (version) {
+            case 0, 1 -> null;
+            case 2 -> BinaryFields.readFixedLongList(in);
+            default -> BinaryFields.readDeltaLongList(in);
+        };
+
+        return new ItemPageCacheModel(
+            items,
+            totalItems,
+            totalPages,
+            page,
+            pageSize,
+            sortField,
+            searchQuery,
+            createdAt,
+            itemIds
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.*;
+
+/**
+ * Сериализатор значений кэша в двоичный формат с заголовком: маркер формата, версия кодека и флаги.
+ * Записи больше порога сжимаются LZ4. Значения без маркера (JSON, записанный до переключения кодека)
+ * читаются резервным сериализатором, поэтому смена кодека не требует очистки кэша.
+ */
+public class VersionedBinaryRedisSerializer<T> implements RedisSerializer<T> {
+    static final byte MAGIC = (byte) 0xB7;
+
+    private static final int FLAG_LZ4 = 1;
+
+    private static final int HEADER_SIZE = 3;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final BinaryCodec<T> codec;
+
+    private final RedisSerializer<T> fallback;
+
+    private final int compressionThreshold;
+
+    /**
+     * @param fallback             сериализатор для чтения записей в прежнем формате
+     * @param compressionThreshold размер тела в байтах, начиная с которого применяется LZ4; 0 отключает сжатие
+     */
+    public VersionedBinaryRedisSerializer(BinaryCodec<T> codec, RedisSerializer<T> fallback, int compressionThreshold) {
+        this.codec = codec;
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try {
+            codec.write(value, new DataOutputStream(buffer));
+        } catch (IOException e) {
+            throw new SerializationException("Не удалось сериализовать значение кэша", e);
+        }
+
+        byte[] body = buffer.toByteArray();
+        if (compressionThreshold > 0 && body.length >= compressionThreshold) {
+            byte[] compressed = LZ4.fastCompressor().compress(body);
+            // Сжатие применяется, только если оно окупает 4 байта исходной длины
+            if (compressed.length + Integer.BYTES < body.length) {
+                return withHeader(compressed, FLAG_LZ4, body.length);
+            }
+        }
+
+        return withHeader(body, 0, -1);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+
+        try {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+            int version = header.readUnsignedByte();
+            int flags = header.readUnsignedByte();
+
+            byte[] body;
+            int offset;
+            if ((flags & FLAG_LZ4) != 0) {
+                int originalLength = header.readInt();
+                int compressedOffset = HEADER_SIZE + Integer.BYTES;
+                body = LZ4.safeDecompressor()
+                    .decompress(bytes, compressedOffset, bytes.length - compressedOffset, originalLength);
+                offset = 0;
+            } else {
+                body = bytes;
+                offset = HEADER_SIZE;
+            }
+
+            return codec.read(new DataInputStream(new ByteArrayInputStream(body, offset, body.length - offset)), version);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Не удалось прочитать значение кэша", e);
+        }
+    }
+
+    private byte[] withHeader(byte[] body, int flags, int originalLength) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length + HEADER_SIZE + Integer.BYTES);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeByte(MAGIC);
+            out.writeByte(codec.version());
+            out.writeByte(flags);
+            if ((flags & FLAG_LZ4) != 0) {
+                out.writeInt(originalLength);
+            }
+            out.write(body);
+        } catch (IOException e) {
+            throw new SerializationException("Не удалось сериализовать значение кэша", e);
+        }
+
+        return buffer.toByteArray();
+    }
+}
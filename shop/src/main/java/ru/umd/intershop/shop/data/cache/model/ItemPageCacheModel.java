@@ -2,6 +2,10 @@ package ru.umd.intershop.shop.data.cache.model;
 
 import java.util.List;
 
+/**
+ * Закэшированная страница товаров. В нормализованном виде {@code items} пуст,
+ * а порядок товаров задаёт {@code itemIds}; у полной страницы {@code itemIds} равен null.
+ */
 public record ItemPageCacheModel(
     List<ItemCacheModel> items,
     int totalItems,
@@ -10,7 +14,8 @@ public record ItemPageCacheModel(
     int pageSize,
     String sortField,
     String searchQuery,
-    long createdAt
+    long createdAt,
+    List<Long> itemIds
 ) {
     public ItemPageCacheModel(
         List<ItemCacheModel> items,
@@ -19,7 +24,7 @@ public record ItemPageCacheModel(
         int page,
         int pageSize
     ) {
-        this(items, totalItems, totalPages, page, pageSize, "NO", null, System.currentTimeMillis());
+        this(items, totalItems, totalPages, page, pageSize, "NO", null, System.currentTimeMillis(), null);
     }
 
     public static ItemPageCacheModel create(
@@ -39,7 +44,30 @@ public record ItemPageCacheModel(
             pageSize,
             sortField,
             searchQuery,
-            System.currentTimeMillis()
+            System.currentTimeMillis(),
+            null
+        );
+    }
+
+    public static ItemPageCacheModel createNormalized(
+        List<Long> itemIds,
+        int totalItems,
+        int totalPages,
+        int page,
+        int pageSize,
+        String sortField,
+        String searchQuery
+    ) {
+        return new ItemPageCacheModel(
+            List.of(),
+            totalItems,
+            totalPages,
+            page,
+            pageSize,
+            sortField,
+            searchQuery,
+            System.currentTimeMillis(),
+            itemIds
         );
     }
 }
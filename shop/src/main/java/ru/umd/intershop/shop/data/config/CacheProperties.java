@@ -2,6 +2,10 @@ package ru.umd.intershop.shop.data.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import ru.umd.intershop.shop.common.constant.CacheCodecEnum;
+import ru.umd.intershop.shop.common.constant.PageCacheModeEnum;
+
+import java.util.List;
 
 /**
  * Класс для хранения настроек кэша, значения загружаются из конфигурации приложения
@@ -11,10 +15,46 @@ import org.springframework.context.annotation.Configuration;
 public class CacheProperties {
     private final Ttl ttl = new Ttl();
 
+    private final Local local = new Local();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    private final Codec codec = new Codec();
+
+    private final Page page = new Page();
+
+    private final Warmup warmup = new Warmup();
+
+    private final ChangeFeed changeFeed = new ChangeFeed();
+
     public Ttl getTtl() {
         return ttl;
     }
 
+    public Local getLocal() {
+        return local;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public Page getPage() {
+        return page;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
     public static class Ttl {
         /**
          * TTL для кэша страниц с товарами (в секундах)
@@ -26,6 +66,17 @@ public class CacheProperties {
          */
         private long item = 600; // По умолчанию 10 минут
 
+        /**
+         * Мягкий TTL для кэша страниц с товарами (в секундах). Страница старше него отдаётся из кэша,
+         * но обновляется в фоне. 0 отключает режим stale-while-revalidate
+         */
+        private long itemsPageSoft = 0;
+
+        /**
+         * Доля случайного разброса TTL (0.1 = ±10%), чтобы записи одной волны истекали не одновременно
+         */
+        private double jitter = 0.1;
+
         public long getItemsPage() {
             return itemsPage;
         }
@@ -41,5 +92,324 @@ public class CacheProperties {
         public void setItem(long item) {
             this.item = item;
         }
+
+        public long getItemsPageSoft() {
+            return itemsPageSoft;
+        }
+
+        public void setItemsPageSoft(long itemsPageSoft) {
+            this.itemsPageSoft = itemsPageSoft;
+        }
+
+        public double getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(double jitter) {
+            this.jitter = jitter;
+        }
+    }
+
+    /**
+     * Локальный (in-process) кэш первого уровня перед Redis
+     */
+    public static class Local {
+        /**
+         * Включает локальный кэш товаров и страниц
+         */
+        private boolean enabled = false;
+
+        /**
+         * Максимальное число товаров в локальном кэше
+         */
+        private long maxItems = 10_000;
+
+        /**
+         * Максимальное число страниц в локальном кэше
+         */
+        private long maxPages = 1_000;
+
+        /**
+         * TTL записей локального кэша (в секундах), не должен превышать TTL в Redis
+         */
+        private long ttl = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(long maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        public long getMaxPages() {
+            return maxPages;
+        }
+
+        public void setMaxPages(long maxPages) {
+            this.maxPages = maxPages;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Объединение одновременных промахов кэша по одному ключу
+     */
+    public static class Coalescing {
+        /**
+         * Включает объединение загрузок внутри узла
+         */
+        private boolean enabled = true;
+
+        /**
+         * Дополнительно защищает загрузку блокировкой в Redis, чтобы её выполнял только один узел
+         */
+        private boolean distributedLock = false;
+
+        /**
+         * Время жизни блокировки загрузки (в миллисекундах)
+         */
+        private long lockTtlMillis = 2_000;
+
+        /**
+         * Интервал повторного чтения кэша узлами, ожидающими загрузку (в миллисекундах)
+         */
+        private long lockWaitIntervalMillis = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isDistributedLock() {
+            return distributedLock;
+        }
+
+        public void setDistributedLock(boolean distributedLock) {
+            this.distributedLock = distributedLock;
+        }
+
+        public long getLockTtlMillis() {
+            return lockTtlMillis;
+        }
+
+        public void setLockTtlMillis(long lockTtlMillis) {
+            this.lockTtlMillis = lockTtlMillis;
+        }
+
+        public long getLockWaitIntervalMillis() {
+            return lockWaitIntervalMillis;
+        }
+
+        public void setLockWaitIntervalMillis(long lockWaitIntervalMillis) {
+            this.lockWaitIntervalMillis = lockWaitIntervalMillis;
+        }
+    }
+
+    /**
+     * Формат значений кэша в Redis, выбирается отдельно для товаров и страниц
+     */
+    public static class Codec {
+        /**
+         * Формат кэша отдельных товаров
+         */
+        private CacheCodecEnum item = CacheCodecEnum.JSON;
+
+        /**
+         * Формат кэша страниц с товарами
+         */
+        private CacheCodecEnum itemsPage = CacheCodecEnum.JSON;
+
+        /**
+         * Размер записи в байтах, начиная с которого двоичный формат сжимается LZ4; 0 отключает сжатие
+         */
+        private int compressionThreshold = 1024;
+
+        public CacheCodecEnum getItem() {
+            return item;
+        }
+
+        public void setItem(CacheCodecEnum item) {
+            this.item = item;
+        }
+
+        public CacheCodecEnum getItemsPage() {
+            return itemsPage;
+        }
+
+        public void setItemsPage(CacheCodecEnum itemsPage) {
+            this.itemsPage = itemsPage;
+        }
+
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        public void setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+    }
+
+    /**
+     * Содержимое записей кэша страниц с товарами
+     */
+    public static class Page {
+        /**
+         * Полные копии товаров в каждой странице или только их id
+         */
+        private PageCacheModeEnum mode = PageCacheModeEnum.FULL;
+
+        public PageCacheModeEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(PageCacheModeEnum mode) {
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * Прогрев первых страниц каталога при старте и после инвалидации
+     */
+    public static class Warmup {
+        /**
+         * Включает прогрев
+         */
+        private boolean enabled = false;
+
+        /**
+         * Число первых страниц, прогреваемых для каждой сортировки и размера страницы
+         */
+        private int pages = 3;
+
+        /**
+         * Прогреваемые размеры страницы
+         */
+        private List<Integer> pageSizes = List.of(10);
+
+        /**
+         * Сколько цепочек страниц прогревается одновременно
+         */
+        private int concurrency = 4;
+
+        /**
+         * Узел не принимает трафик, пока не закончится прогрев при старте
+         */
+        private boolean waitForReadiness = false;
+
+        /**
+         * Максимальное время ожидания прогрева при старте (в секундах)
+         */
+        private long timeout = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        public void setPages(int pages) {
+            this.pages = pages;
+        }
+
+        public List<Integer> getPageSizes() {
+            return pageSizes;
+        }
+
+        public void setPageSizes(List<Integer> pageSizes) {
+            this.pageSizes = pageSizes;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public boolean isWaitForReadiness() {
+            return waitForReadiness;
+        }
+
+        public void setWaitForReadiness(boolean waitForReadiness) {
+            this.waitForReadiness = waitForReadiness;
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Инвалидация кэша по уведомлениям Postgres об изменениях в таблице товаров
+     */
+    public static class ChangeFeed {
+        /**
+         * Включает подписку на уведомления
+         */
+        private boolean enabled = false;
+
+        /**
+         * Сколько ждать следующих уведомлений, прежде чем применить накопленные (в миллисекундах)
+         */
+        private long debounceMillis = 200;
+
+        /**
+         * Максимальное число уведомлений, применяемых за раз
+         */
+        private int batchSize = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getDebounceMillis() {
+            return debounceMillis;
+        }
+
+        public void setDebounceMillis(long debounceMillis) {
+            this.debounceMillis = debounceMillis;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
     }
-}
\ No newline at end of file
+}
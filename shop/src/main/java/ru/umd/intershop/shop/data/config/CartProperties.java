@@ -0,0 +1,48 @@
+package ru.umd.intershop.shop.data.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.umd.intershop.shop.common.constant.CartStorageEnum;
+
+import java.time.Duration;
+
+/**
+ * Настройки корзины покупателя, значения загружаются из конфигурации приложения
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cart")
+public class CartProperties {
+    private final Storage storage = new Storage();
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public static class Storage {
+        /**
+         * Где хранится корзина до оформления заказа
+         */
+        private CartStorageEnum mode = CartStorageEnum.DATABASE;
+
+        /**
+         * Сколько корзина в Redis хранится после последнего обращения к ней
+         */
+        private Duration ttl = Duration.ofDays(7);
+
+        public CartStorageEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(CartStorageEnum mode) {
+            this.mode = mode;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
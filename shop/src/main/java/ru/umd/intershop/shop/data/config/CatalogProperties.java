@@ -0,0 +1,174 @@
+package ru.umd.intershop.shop.data.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.umd.intershop.shop.common.constant.CatalogEngineEnum;
+import ru.umd.intershop.shop.common.constant.PagingModeEnum;
+import ru.umd.intershop.shop.common.constant.SearchModeEnum;
+
+/**
+ * Настройки каталога товаров, значения загружаются из конфигурации приложения
+ */
+@Configuration
+@ConfigurationProperties(prefix = "catalog")
+public class CatalogProperties {
+    private final Search search = new Search();
+
+    private final Paging paging = new Paging();
+
+    private final Engine engine = new Engine();
+
+    private final Export export = new Export();
+
+    private final Import importSettings = new Import();
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Paging getPaging() {
+        return paging;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Import getImport() {
+        return importSettings;
+    }
+
+    public static class Search {
+        /**
+         * Режим поиска товаров по названию
+         */
+        private SearchModeEnum mode = SearchModeEnum.TRIGRAM;
+
+        /**
+         * Минимальная длина поискового запроса для триграммного поиска в режиме TRIGRAM, более короткие
+         * запросы ищутся по вхождению подстроки без ранжирования
+         */
+        private int minQueryLength = 3;
+
+        public SearchModeEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(SearchModeEnum mode) {
+            this.mode = mode;
+        }
+
+        public int getMinQueryLength() {
+            return minQueryLength;
+        }
+
+        public void setMinQueryLength(int minQueryLength) {
+            this.minQueryLength = minQueryLength;
+        }
+    }
+
+    public static class Paging {
+        /**
+         * Режим постраничного вывода каталога без поиска
+         */
+        private PagingModeEnum mode = PagingModeEnum.OFFSET;
+
+        public PagingModeEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(PagingModeEnum mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Engine {
+        /**
+         * Откуда берутся страницы каталога: из БД или из снимка в памяти
+         */
+        private CatalogEngineEnum mode = CatalogEngineEnum.DATABASE;
+
+        public CatalogEngineEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(CatalogEngineEnum mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Export {
+        /**
+         * Сколько строк драйвер R2DBC запрашивает у БД за один раз при выгрузке каталога
+         */
+        private int fetchSize = 500;
+
+        /**
+         * Сколько строк собирается в один фрагмент ответа (и один gzip-блок)
+         */
+        private int chunkSize = 200;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Import {
+        /**
+         * Сколько товаров вставляется в БД за раз. Пачка больше 13106 строк не укладывается
+         * в предел параметров Postgres и отправляется несколькими INSERT.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Сколько ошибок по строкам попадает в отчёт об импорте, остальные только подсчитываются
+         */
+        private int maxReportedErrors = 100;
+
+        /**
+         * Максимальная длина одной записи файла в символах. Более длинная запись попадает в отчёт
+         * как ошибочная, а файл без переводов строк прерывает импорт
+         */
+        private int maxRecordSize = 64 * 1024;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        public int getMaxRecordSize() {
+            return maxRecordSize;
+        }
+
+        public void setMaxRecordSize(int maxRecordSize) {
+            this.maxRecordSize = maxRecordSize;
+        }
+    }
+}
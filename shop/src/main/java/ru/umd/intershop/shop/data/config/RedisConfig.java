@@ -7,6 +7,11 @@ import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.*;
+import ru.umd.intershop.shop.common.constant.CacheCodecEnum;
+import ru.umd.intershop.shop.data.cache.codec.BinaryCodec;
+import ru.umd.intershop.shop.data.cache.codec.ItemCacheModelBinaryCodec;
+import ru.umd.intershop.shop.data.cache.codec.ItemPageCacheModelBinaryCodec;
+import ru.umd.intershop.shop.data.cache.codec.VersionedBinaryRedisSerializer;
 import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
 import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
 
@@ -14,8 +19,16 @@ import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
 @EnableConfigurationProperties(CacheProperties.class)
 public class RedisConfig {
     @Bean
-    ReactiveRedisOperations<String, ItemCacheModel> itemRedisOperations(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<ItemCacheModel> serializer = new Jackson2JsonRedisSerializer<>(ItemCacheModel.class);
+    ReactiveRedisOperations<String, ItemCacheModel> itemRedisOperations(
+        ReactiveRedisConnectionFactory factory,
+        CacheProperties cacheProperties
+    ) {
+        RedisSerializer<ItemCacheModel> serializer = valueSerializer(
+            cacheProperties.getCodec().getItem(),
+            ItemCacheModel.class,
+            new ItemCacheModelBinaryCodec(),
+            cacheProperties.getCodec().getCompressionThreshold()
+        );
 
         RedisSerializationContext.RedisSerializationContextBuilder<String, ItemCacheModel> builder =
             RedisSerializationContext.newSerializationContext(new StringRedisSerializer());
@@ -26,9 +39,16 @@ public class RedisConfig {
     }
 
     @Bean
-    ReactiveRedisOperations<String, ItemPageCacheModel> itemPageRedisOperations(ReactiveRedisConnectionFactory factory) {
-        Jackson2JsonRedisSerializer<ItemPageCacheModel> serializer = new Jackson2JsonRedisSerializer<>(
-            ItemPageCacheModel.class);
+    ReactiveRedisOperations<String, ItemPageCacheModel> itemPageRedisOperations(
+        ReactiveRedisConnectionFactory factory,
+        CacheProperties cacheProperties
+    ) {
+        RedisSerializer<ItemPageCacheModel> serializer = valueSerializer(
+            cacheProperties.getCodec().getItemsPage(),
+            ItemPageCacheModel.class,
+            new ItemPageCacheModelBinaryCodec(new ItemCacheModelBinaryCodec()),
+            cacheProperties.getCodec().getCompressionThreshold()
+        );
 
         RedisSerializationContext.RedisSerializationContextBuilder<String, ItemPageCacheModel> builder =
             RedisSerializationContext.newSerializationContext(new StringRedisSerializer());
@@ -38,4 +58,20 @@ public class RedisConfig {
         return new ReactiveRedisTemplate<>(factory, context);
     }
 
+    /**
+     * Двоичный сериализатор продолжает читать JSON, записанный до переключения формата
+     */
+    private static <T> RedisSerializer<T> valueSerializer(
+        CacheCodecEnum codecType,
+        Class<T> type,
+        BinaryCodec<T> binaryCodec,
+        int compressionThreshold
+    ) {
+        Jackson2JsonRedisSerializer<T> jsonSerializer = new Jackson2JsonRedisSerializer<>(type);
+
+        return switch (codecType) {
+            case JSON -> jsonSerializer;
+            case BINARY -> new VersionedBinaryRedisSerializer<>(binaryCodec, jsonSerializer, compressionThreshold);
+        };
+    }
 }
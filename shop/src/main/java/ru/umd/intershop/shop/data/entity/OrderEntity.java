@@ -30,6 +30,12 @@ public class OrderEntity extends BaseEntity {
     @NonNull
     private BigDecimal totalPrice;
 
+    /**
+     * Идентификатор посетителя, которому принадлежит корзина
+     */
+    @Column
+    private String sessionId;
+
     public OrderEntity(@NonNull String status, @NonNull BigDecimal totalPrice) {
         this.status = status;
         this.totalPrice = totalPrice;
@@ -0,0 +1,50 @@
+package ru.umd.intershop.shop.data.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+
+import java.util.List;
+
+/**
+ * Запросы к товарам, которые не выражаются через derived/@Query методы
+ */
+public interface ItemQueryRepository {
+    /**
+     * Поиск активных товаров по подстроке в названии с использованием триграммного индекса.
+     * При сортировке {@link ItemSortingEnum#NO} товары ранжируются по релевантности.
+     * Общее число найденных товаров возвращается тем же запросом через оконный агрегат.
+     */
+    Mono<ItemSearchPage> searchActivePageByName(String search, ItemSortingEnum sort, Pageable pageable);
+
+    Mono<Long> countActiveByName(String search);
+
+    /**
+     * Keyset-выборка страницы активных товаров, упорядоченных по (ключ сортировки, id).
+     * Без ключа возвращается первая страница, иначе товары строго после ({@code forward})
+     * или строго до заданной позиции. Результат всегда в порядке возрастания.
+     */
+    Flux<ItemEntity> seekActive(
+        ItemSortingEnum sort,
+        @Nullable Object sortValue,
+        @Nullable Long id,
+        boolean forward,
+        int limit
+    );
+
+    /**
+     * Все активные товары по возрастанию id. Строки читаются из БД порциями по {@code fetchSize},
+     * следующая порция запрашивается только по мере потребления предыдущей.
+     */
+    Flux<ItemEntity> streamActive(int fetchSize);
+
+    /**
+     * Вставка товаров многострочным INSERT, пачка больше предела параметров Postgres делится
+     * на несколько запросов. Возвращает id вставленных товаров; чтобы при ошибке не вставился
+     * ни один товар пачки, вызов нужно выполнять в транзакции.
+     */
+    Flux<Long> insertAll(List<ItemEntity> items);
+}
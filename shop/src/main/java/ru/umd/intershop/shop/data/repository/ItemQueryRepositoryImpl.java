@@ -0,0 +1,233 @@
+package ru.umd.intershop.shop.data.repository;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ItemQueryRepositoryImpl implements ItemQueryRepository {
+    /**
+     * Postgres принимает не больше 65535 параметров на запрос: пять на строку и один общий
+     */
+    static final int MAX_INSERT_ROWS = (65535 - 1) / 5;
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Override
+    public Mono<ItemSearchPage> searchActivePageByName(String search, ItemSortingEnum sort, Pageable pageable) {
+        String sql = """
+                     SELECT i.*, COUNT(*) OVER() AS total_count FROM items i \
+                     WHERE i.is_active = true \
+                     AND i.name ILIKE :pattern \
+                     ORDER BY %s \
+                     LIMIT :limit OFFSET :offset
+                     """.formatted(searchOrderBy(sort));
+
+        DatabaseClient.GenericExecuteSpec spec = r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(sql)
+            .bind("pattern", toContainsPattern(search))
+            .bind("limit", pageable.getPageSize())
+            .bind("offset", pageable.getOffset());
+
+        if (sort == ItemSortingEnum.NO) {
+            spec = spec.bind("search", search);
+        }
+
+        return spec
+            .map((row, metadata) -> Tuples.of(mapItem(row, metadata), row.get("total_count", Long.class)))
+            .all()
+            .collectList()
+            .flatMap(rows -> {
+                if (rows.isEmpty()) {
+                    // За пределами выборки строк нет и оконный агрегат ничего не вернул, считаем отдельно
+                    return pageable.getOffset() == 0 ?
+                        Mono.just(new ItemSearchPage(List.of(), 0)) :
+                        countActiveByName(search).map(total -> new ItemSearchPage(List.of(), total));
+                }
+
+                List<ItemEntity> items = rows.stream().map(Tuple2::getT1).toList();
+                return Mono.just(new ItemSearchPage(items, rows.get(0).getT2()));
+            });
+    }
+
+    @Override
+    public Mono<Long> countActiveByName(String search) {
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("""
+                 SELECT COUNT(*) FROM items i \
+                 WHERE i.is_active = true \
+                 AND i.name ILIKE :pattern
+                 """)
+            .bind("pattern", toContainsPattern(search))
+            .map(row -> row.get(0, Long.class))
+            .one();
+    }
+
+    @Override
+    public Flux<ItemEntity> seekActive(
+        ItemSortingEnum sort,
+        @Nullable Object sortValue,
+        @Nullable Long id,
+        boolean forward,
+        int limit
+    ) {
+        String sql = seekSql(sort, id != null, forward);
+        boolean byIdOnly = sort == ItemSortingEnum.NO;
+
+        DatabaseClient.GenericExecuteSpec spec = r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(sql)
+            .bind("limit", limit);
+
+        if (id != null) {
+            spec = spec.bind("id", id);
+            if (!byIdOnly) {
+                spec = spec.bind("value", sortValue);
+            }
+        }
+
+        return spec
+            .map(this::mapItem)
+            .all();
+    }
+
+    /**
+     * Текст keyset-запроса с параметрами {@code :value}, {@code :id} и {@code :limit}
+     */
+    static String seekSql(ItemSortingEnum sort, boolean withKey, boolean forward) {
+        String column = sort.getEntityField();
+        boolean byIdOnly = sort == ItemSortingEnum.NO;
+        String direction = forward ? "ASC" : "DESC";
+
+        String keysetCondition = "";
+        if (withKey) {
+            String operator = forward ? ">" : "<";
+            keysetCondition = byIdOnly ?
+                "AND id %s :id".formatted(operator) :
+                "AND (%s, id) %s (:value, :id)".formatted(column, operator);
+        }
+
+        String sql = """
+                     SELECT * FROM items \
+                     WHERE is_active = true %s \
+                     ORDER BY %s \
+                     LIMIT :limit
+                     """.formatted(keysetCondition, seekOrderBy(sort, direction));
+
+        if (!forward) {
+            // Назад идём по индексу в обратном порядке, а страницу отдаём в прямом
+            sql = "SELECT * FROM (%s) page ORDER BY %s".formatted(sql, seekOrderBy(sort, "ASC"));
+        }
+
+        return sql;
+    }
+
+    @Override
+    public Flux<ItemEntity> streamActive(int fetchSize) {
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql("SELECT * FROM items WHERE is_active = true ORDER BY id")
+            .filter(statement -> statement.fetchSize(fetchSize))
+            .map(this::mapItem)
+            .all();
+    }
+
+    @Override
+    public Flux<Long> insertAll(List<ItemEntity> items) {
+        if (items.isEmpty()) {
+            return Flux.empty();
+        }
+
+        // Пачка больше предела параметров протокола разбивается на несколько INSERT
+        return Flux
+            .range(0, (items.size() + MAX_INSERT_ROWS - 1) / MAX_INSERT_ROWS)
+            .map(chunk -> items.subList(chunk * MAX_INSERT_ROWS, Math.min(items.size(), (chunk + 1) * MAX_INSERT_ROWS)))
+            .concatMap(this::insertRows);
+    }
+
+    private Flux<Long> insertRows(List<ItemEntity> items) {
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO items (name, description, price, image_file_name, is_active, created_at, updated_at) VALUES "
+        );
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:name%1$d, :description%1$d, :price%1$d, :image%1$d, :active%1$d, :now, :now)".formatted(i));
+        }
+        sql.append(" RETURNING id");
+
+        DatabaseClient.GenericExecuteSpec spec = r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(sql.toString())
+            .bind("now", LocalDateTime.now());
+
+        for (int i = 0; i < items.size(); i++) {
+            ItemEntity item = items.get(i);
+            spec = bindNullable(spec, "name" + i, item.getName(), String.class);
+            spec = bindNullable(spec, "description" + i, item.getDescription(), String.class);
+            spec = bindNullable(spec, "price" + i, item.getPrice(), BigDecimal.class);
+            spec = bindNullable(spec, "image" + i, item.getImageFileName(), String.class);
+            spec = spec.bind("active" + i, item.getIsActive());
+        }
+
+        return spec
+            .map(row -> row.get("id", Long.class))
+            .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(
+        DatabaseClient.GenericExecuteSpec spec,
+        String name,
+        @Nullable Object value,
+        Class<?> type
+    ) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private ItemEntity mapItem(Row row, RowMetadata metadata) {
+        return r2dbcEntityTemplate.getConverter().read(ItemEntity.class, row, metadata);
+    }
+
+    private static String searchOrderBy(ItemSortingEnum sort) {
+        return switch (sort) {
+            case NO -> "word_similarity(:search, i.name) DESC, i.id";
+            case ALPHA -> "i.name, i.id";
+            case PRICE -> "i.price, i.id";
+        };
+    }
+
+    private static String seekOrderBy(ItemSortingEnum sort, String direction) {
+        return sort == ItemSortingEnum.NO ?
+            "id " + direction :
+            "%s %s, id %s".formatted(sort.getEntityField(), direction, direction);
+    }
+
+    /**
+     * Экранирует спецсимволы LIKE, чтобы пользовательский ввод искался как обычная подстрока
+     */
+    private static String toContainsPattern(String search) {
+        String escaped = search
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+
+        return "%" + escaped + "%";
+    }
+}
@@ -11,9 +11,22 @@ import ru.umd.intershop.shop.data.entity.ItemEntity;
 
 import java.util.Collection;
 
-public interface ItemRepository extends ReactiveCrudRepository<ItemEntity, Long> {
+public interface ItemRepository extends ReactiveCrudRepository<ItemEntity, Long>, ItemQueryRepository {
     Flux<ItemEntity> findAllByIsActiveTrue(Pageable pageable);
 
+    Flux<ItemEntity> findAllByIsActiveTrueOrderByNameAscIdAsc();
+
+    /**
+     * Позиция товара в сортировке по названию среди остальных активных товаров,
+     * в правилах сравнения строк самой БД
+     */
+    @Query("""
+           SELECT COUNT(*) FROM items i \
+           WHERE i.is_active = true \
+           AND (i.name, i.id) < (:name, :id)
+           """)
+    Mono<Long> countActiveBeforeByName(String name, Long id);
+
     @Query("""
            SELECT * FROM items i \
            WHERE i.is_active = true \
@@ -35,4 +48,6 @@ public interface ItemRepository extends ReactiveCrudRepository<ItemEntity, Long>
     Mono<Long> countByIsActiveTrueAndNameLikeIgnoreCase(String search);
 
     Flux<ItemEntity> findByIdIn(@Nullable Collection<Long> ids);
+
+    Flux<ItemEntity> findByIdInAndIsActiveTrue(Collection<Long> ids);
 }
@@ -0,0 +1,14 @@
+package ru.umd.intershop.shop.data.repository;
+
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+
+import java.util.List;
+
+/**
+ * Страница результатов поиска вместе с общим числом найденных товаров
+ */
+public record ItemSearchPage(
+    List<ItemEntity> items,
+    long totalItems
+) {
+}
@@ -1,9 +1,50 @@
 package ru.umd.intershop.shop.data.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.umd.intershop.shop.data.entity.OrderItemEntity;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 public interface OrderItemRepository extends ReactiveCrudRepository<OrderItemEntity, Long> {
     Flux<OrderItemEntity> findAllByOrderIdOrderByIdDesc(Long orderId);
+
+    Flux<OrderItemEntity> findAllByOrderIdInOrderByIdDesc(Collection<Long> orderIds);
+
+    /**
+     * Меняет количество товара в заказе на delta одним запросом, создавая позицию при её отсутствии.
+     * Количество не опускается ниже нуля.
+     */
+    @Modifying
+    @Query("""
+           INSERT INTO order_items (order_id, item_id, count, created_at, updated_at) \
+           VALUES (:orderId, :itemId, GREATEST(:delta, 0), :now, :now) \
+           ON CONFLICT (order_id, item_id) DO UPDATE \
+           SET count = GREATEST(order_items.count + :delta, 0), updated_at = :now
+           """)
+    Mono<Integer> addCount(Long orderId, Long itemId, int delta, LocalDateTime now);
+
+    /**
+     * Добавляет в заказ все позиции одним запросом: id товаров и количества передаются
+     * параллельными массивами
+     */
+    @Modifying
+    @Query("""
+           INSERT INTO order_items (order_id, item_id, count, created_at, updated_at) \
+           SELECT :orderId, line.item_id, line.count, :now, :now \
+           FROM unnest(CAST(:itemIds AS BIGINT[]), CAST(:counts AS INT[])) AS line(item_id, count)
+           """)
+    Mono<Integer> insertAll(Long orderId, Long[] itemIds, Integer[] counts, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM order_items WHERE order_id = :orderId AND item_id = :itemId")
+    Mono<Integer> deleteByOrderIdAndItemId(Long orderId, Long itemId);
+
+    @Modifying
+    @Query("DELETE FROM order_items WHERE order_id = :orderId")
+    Mono<Integer> deleteAllByOrderId(Long orderId);
 }
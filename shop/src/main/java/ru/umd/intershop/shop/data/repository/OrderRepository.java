@@ -1,11 +1,15 @@
 package ru.umd.intershop.shop.data.repository;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.shop.data.entity.OrderEntity;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
 public interface OrderRepository extends ReactiveCrudRepository<OrderEntity, Long> {
     @NonNull
     Mono<OrderEntity> findById(@NonNull Long id);
@@ -13,7 +17,52 @@ public interface OrderRepository extends ReactiveCrudRepository<OrderEntity, Lon
     @NonNull
     Mono<Void> deleteById(@NonNull Long id);
 
-    Mono<OrderEntity> findLastByStatus(String status);
+    Mono<OrderEntity> findBySessionIdAndStatus(String sessionId, String status);
+
+    /**
+     * Создаёт корзину сессии, если её ещё нет. При гонке вставку выполнит только один запрос,
+     * остальные получат пустой результат и прочитают созданную строку.
+     */
+    @Query("""
+           INSERT INTO orders (session_id, status, total_price, created_at, updated_at) \
+           VALUES (:sessionId, 'NEW', 0, :now, :now) \
+           ON CONFLICT (session_id, status) WHERE status = 'NEW' DO NOTHING \
+           RETURNING *
+           """)
+    Mono<OrderEntity> insertCartIfAbsent(String sessionId, LocalDateTime now);
+
+    /**
+     * Сумма заказа по текущим ценам товаров
+     */
+    @Query("""
+           SELECT COALESCE(SUM(i.price * oi.count), 0) \
+           FROM order_items oi \
+           JOIN items i ON i.id = oi.item_id \
+           WHERE oi.order_id = :orderId
+           """)
+    Mono<BigDecimal> calculateTotal(Long orderId);
+
+    /**
+     * Оформляет заказ с заданной суммой одним запросом, если она всё ещё совпадает с суммой позиций
+     * по текущим ценам. Возвращает id заказа или ничего, если заказ уже был оформлен либо его
+     * позиции или цены изменились после расчёта суммы.
+     */
+    @Query("""
+           UPDATE orders \
+           SET total_price = :totalPrice, status = 'COMPLETED', updated_at = :now \
+           WHERE id = :orderId AND status = 'NEW' \
+           AND :totalPrice = ( \
+               SELECT COALESCE(SUM(i.price * oi.count), 0) \
+               FROM order_items oi \
+               JOIN items i ON i.id = oi.item_id \
+               WHERE oi.order_id = :orderId \
+           ) \
+           RETURNING id
+           """)
+    Mono<Long> complete(Long orderId, BigDecimal totalPrice, LocalDateTime now);
 
     Flux<OrderEntity> findAllByStatus(String status);
+
+    @Query("SELECT * FROM orders WHERE status = :status ORDER BY id DESC LIMIT :limit OFFSET :offset")
+    Flux<OrderEntity> findPageByStatus(String status, long offset, int limit);
 }
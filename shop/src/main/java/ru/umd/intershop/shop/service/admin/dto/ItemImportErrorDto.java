@@ -0,0 +1,16 @@
+package ru.umd.intershop.shop.service.admin.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportErrorDto {
+    /**
+     * Номер строки файла, с которой начинается запись
+     */
+    private long line;
+
+    private String message;
+}
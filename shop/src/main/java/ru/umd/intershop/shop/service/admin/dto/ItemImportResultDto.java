@@ -0,0 +1,22 @@
+package ru.umd.intershop.shop.service.admin.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportResultDto {
+    private int imported;
+
+    private int failed;
+
+    /**
+     * Ошибки по строкам файла, не больше настроенного предела; {@link #failed} считает все
+     */
+    @Builder.Default
+    private List<ItemImportErrorDto> errors = new ArrayList<>();
+}
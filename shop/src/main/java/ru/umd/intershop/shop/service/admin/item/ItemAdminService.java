@@ -1,19 +1,33 @@
 package ru.umd.intershop.shop.service.admin.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.ReactiveRedisOperations;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.cache.ItemChangeFeed;
+import ru.umd.intershop.shop.data.config.CatalogProperties;
 import ru.umd.intershop.shop.data.entity.ItemEntity;
 import ru.umd.intershop.shop.data.repository.ItemRepository;
 import ru.umd.intershop.shop.service.admin.dto.ItemForm;
+import ru.umd.intershop.shop.service.admin.dto.ItemImportErrorDto;
+import ru.umd.intershop.shop.service.admin.dto.ItemImportResultDto;
+import ru.umd.intershop.shop.service.exception.ImageTooLargeException;
+import ru.umd.intershop.shop.service.image.ImageStorageService;
+import ru.umd.intershop.shop.service.item.InMemoryCatalog;
+import ru.umd.intershop.shop.service.item.ItemCacheWarmup;
 
-import java.io.File;
-import java.util.UUID;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -21,38 +35,128 @@ import java.util.UUID;
 public class ItemAdminService {
     private final ItemRepository itemRepository;
 
-    private final ReactiveRedisOperations<String, ItemPageCacheModel> itemPageRedisOperations;
+    private final CatalogGeneration catalogGeneration;
 
-    @Value("${app.image-file-base-path}")
-    private String imageBasePath;
+    private final ItemChangeFeed itemChangeFeed;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ItemCacheWarmup itemCacheWarmup;
+
+    private final InMemoryCatalog inMemoryCatalog;
+
+    private final CatalogProperties catalogProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final ImageStorageService imageStorageService;
 
     public Mono<Void> createItem(ItemForm itemForm) {
-        Mono<String> fileNameMono = processImageFile(itemForm.getImageFile());
+        Mono<Optional<String>> fileNameMono = processImageFile(itemForm.getImageFile())
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty());
 
-        return fileNameMono.flatMap(fileName -> saveItemAndClearCache(itemForm, fileName));
+        return fileNameMono.flatMap(fileName -> saveItemAndClearCache(itemForm, fileName.orElse(null)));
     }
 
-    private Mono<String> processImageFile(FilePart file) {
-        if (file == null) {
-            return Mono.just(null);
+    /**
+     * Импорт товаров из файла в формате выгрузки каталога. Файл читается и разбирается потоком,
+     * корректные строки вставляются пачками, ошибочные попадают в отчёт. Кэш каталога
+     * инвалидируется один раз по окончании импорта, в том числе прерванного ошибкой,
+     * если хотя бы одна пачка уже сохранена.
+     */
+    public Mono<ItemImportResultDto> importItems(Flux<DataBuffer> content, ExportFormatEnum format) {
+        return Mono.defer(() -> {
+            CatalogProperties.Import properties = catalogProperties.getImport();
+            ItemImportParser parser = new ItemImportParser(format, objectMapper, properties.getMaxRecordSize());
+            ItemImportResultDto result = new ItemImportResultDto();
+
+            StringDecoder lineDecoder = StringDecoder.allMimeTypes(List.of("\n"), true);
+            lineDecoder.setMaxInMemorySize(maxLineBytes(properties.getMaxRecordSize()));
+            Flux<String> lines = lineDecoder.decode(content, ResolvableType.forClass(String.class), null, null);
+
+            return parser
+                .parse(lines)
+                .doOnNext(row -> {
+                    if (row.error() != null) {
+                        addError(result, row, properties.getMaxReportedErrors());
+                    }
+                })
+                .filter(row -> row.error() == null)
+                .buffer(properties.getBatchSize())
+                // Пачка, вставка которой уже идёт, дописывается и учитывается даже при ошибке чтения файла
+                .concatMapDelayError(this::insertBatch)
+                .doOnNext(row -> {
+                    if (row.error() != null) {
+                        addError(result, row, properties.getMaxReportedErrors());
+                    } else {
+                        result.setImported(result.getImported() + 1);
+                    }
+                })
+                .then(Mono.defer(() -> invalidateAfterImport(result)))
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Импорт товаров завершён: загружено {}, ошибок {}", result.getImported(), result.getFailed());
+                    return result;
+                }))
+                .onErrorResume(e -> {
+                    log.warn("Импорт товаров прерван после загрузки {} товаров: {}", result.getImported(), e.getMessage());
+                    return invalidateAfterImport(result).then(Mono.error(e));
+                });
+        });
+    }
+
+    private Mono<Void> invalidateAfterImport(ItemImportResultDto result) {
+        return result.getImported() > 0 ? invalidateItemPageCache(null) : Mono.empty();
+    }
+
+    /**
+     * Предел декодера строк задан в байтах, а длина записи в символах. Символ UTF-8 занимает
+     * до 4 байт, поэтому строку длиннее допустимой записи отклоняет разбор с ошибкой по строке,
+     * а декодер прерывает импорт только для файла без переводов строк.
+     */
+    private static int maxLineBytes(int maxRecordSize) {
+        return (int) Math.min(Integer.MAX_VALUE, 4L * maxRecordSize + 1024);
+    }
+
+    /**
+     * Пачка вставляется одним запросом. Если запрос не прошёл, пачка повторяется по одной строке,
+     * чтобы ошибка досталась только виновной строке.
+     */
+    private Flux<ItemImportParser.Row> insertBatch(List<ItemImportParser.Row> rows) {
+        return inClaimedTransaction(itemRepository
+            .insertAll(rows.stream().map(ItemImportParser.Row::item).toList())
+            .collectList())
+            .thenMany(Flux.fromIterable(rows))
+            .onErrorResume(batchError -> {
+                log.warn("Ошибка при вставке пачки из {} товаров, вставка по одному: {}", rows.size(), batchError.getMessage());
+                return Flux
+                    .fromIterable(rows)
+                    .concatMap(row -> inClaimedTransaction(itemRepository.insertAll(List.of(row.item())).collectList())
+                        .then(Mono.just(row))
+                        .onErrorResume(e -> Mono.just(row.withError("Ошибка сохранения: " + e.getMessage()))));
+            });
+    }
+
+    private static void addError(ItemImportResultDto result, ItemImportParser.Row row, int maxReportedErrors) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ItemImportErrorDto(row.lineNumber(), row.error()));
         }
+    }
 
-        String originalFilename = file.filename();
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    /**
+     * Без файла товар сохраняется без изображения
+     */
+    private Mono<String> processImageFile(FilePart file) {
+        if (file == null) {
+            return Mono.empty();
         }
-        String newFileName = UUID.randomUUID() + extension;
 
-        return Mono.fromCallable(() -> {
-                File uploadDir = new File(imageBasePath);
-                if (!uploadDir.exists()) {
-                    uploadDir.mkdirs();
-                }
-                return new File(uploadDir, newFileName).toPath();
-            })
-            .flatMap(path -> file.transferTo(path).thenReturn(newFileName))
+        return imageStorageService.store(file.content(), file.filename())
             .onErrorResume(e -> {
+                if (e instanceof ImageTooLargeException) {
+                    return Mono.error(e);
+                }
                 log.error("Ошибка при сохранении файла: {}", e.getMessage(), e);
                 return Mono.error(new RuntimeException("Ошибка сохранения файла", e));
             });
@@ -67,10 +171,13 @@ public class ItemAdminService {
             .isActive(itemForm.getIsActive() != null ? itemForm.getIsActive() : true)
             .build();
 
-        return itemRepository.save(itemEntity)
+        return inClaimedTransaction(itemRepository.save(itemEntity))
             .flatMap(savedItem -> {
                 log.info("Сохранен новый товар с ID: {}", savedItem.getId());
-                return invalidateItemPageCache();
+                // Неактивный товар не попадает ни на одну страницу каталога, поколение сохраняется
+                return Boolean.TRUE.equals(savedItem.getIsActive()) ?
+                    invalidateItemPageCache(savedItem) :
+                    Mono.<Void>empty();
             })
             .onErrorResume(e -> {
                 log.error("Ошибка при сохранении товара: {}", e.getMessage(), e);
@@ -78,18 +185,34 @@ public class ItemAdminService {
             });
     }
 
-    private Mono<Void> invalidateItemPageCache() {
+    /**
+     * Запись товаров в транзакции, занятой приложением: лента изменений только удалит товары из кэша,
+     * а поколение каталога переключит этот сервис после записи
+     */
+    private <T> Mono<T> inClaimedTransaction(Mono<T> write) {
+        return transactionalOperator.transactional(
+            write.flatMap(result -> itemChangeFeed.claimCurrentTransaction().thenReturn(result))
+        );
+    }
+
+    /**
+     * Переключает поколение каталога. Изменённый товар, если он один, сразу применяется к каталогу
+     * в памяти, после массовых изменений снимок перезагружается целиком.
+     */
+    private Mono<Void> invalidateItemPageCache(@Nullable ItemEntity changedItem) {
         log.info("Инвалидация кэша страниц товаров");
 
-        return itemPageRedisOperations
-            .scan()
-            .filter(key -> key.toString().startsWith("items:page:"))
-            .flatMap(key -> {
-                log.debug("Удаление кэша для ключа: {}", key);
-                return itemPageRedisOperations.opsForValue().delete(key);
+        return catalogGeneration
+            .increment()
+            .flatMap(generation -> {
+                log.info("Кэш страниц товаров успешно инвалидирован");
+                Mono<Void> applied = changedItem != null ?
+                    inMemoryCatalog.apply(changedItem, generation) :
+                    Mono.empty();
+
+                // Первые страницы нового поколения заполняются до прихода пользователей
+                return applied.doFinally(signal -> itemCacheWarmup.warmUpInBackground());
             })
-            .doOnComplete(() -> log.info("Кэш страниц товаров успешно инвалидирован"))
-            .doOnError(e -> log.error("Ошибка при инвалидации кэша: {}", e.getMessage(), e))
             .onErrorResume(e -> {
                 log.warn("Проблема при очистке кэша (игнорируется): {}", e.getMessage());
                 return Mono.empty();
@@ -0,0 +1,267 @@
+package ru.umd.intershop.shop.service.admin.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.Flux;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Разбор файла импорта товаров по строкам в формате выгрузки каталога. Строки поступают по мере
+ * чтения файла, в памяти держится только текущая запись. Ошибка в записи не прерывает разбор,
+ * а возвращается вместе с номером строки файла. Экземпляр обслуживает один файл.
+ */
+class ItemImportParser {
+    private static final int NAME_MAX_LENGTH = 255;
+
+    private static final int DESCRIPTION_MAX_LENGTH = 1024;
+
+    private static final int IMAGE_FILE_NAME_MAX_LENGTH = 255;
+
+    private final ExportFormatEnum format;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxRecordSize;
+
+    private long lineNumber;
+
+    private long recordStartLine;
+
+    private StringBuilder pendingRecord;
+
+    private Map<String, Integer> header;
+
+    ItemImportParser(ExportFormatEnum format, ObjectMapper objectMapper, int maxRecordSize) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.maxRecordSize = maxRecordSize;
+    }
+
+    record Row(long lineNumber, ItemEntity item, String error) {
+        static Row failed(long lineNumber, String error) {
+            return new Row(lineNumber, null, error);
+        }
+
+        Row withError(String error) {
+            return new Row(lineNumber, item, error);
+        }
+    }
+
+    Flux<Row> parse(Flux<String> lines) {
+        return lines
+            .concatMapIterable(this::accept)
+            .concatWith(Flux.defer(() -> Flux.fromIterable(finish())));
+    }
+
+    private List<Row> accept(String rawLine) {
+        lineNumber++;
+        String line = rawLine.endsWith("\r") ? rawLine.substring(0, rawLine.length() - 1) : rawLine;
+
+        if (format == ExportFormatEnum.NDJSON) {
+            if (line.length() > maxRecordSize) {
+                return List.of(Row.failed(lineNumber, "Запись длиннее " + maxRecordSize + " символов"));
+            }
+            return line.isBlank() ? List.of() : List.of(parseJson(line));
+        }
+
+        if (pendingRecord == null) {
+            if (line.isEmpty()) {
+                return List.of();
+            }
+            recordStartLine = lineNumber;
+            pendingRecord = new StringBuilder(line);
+        } else {
+            // Перевод строки внутри кавычек принадлежит значению поля
+            pendingRecord.append('\n').append(line);
+        }
+
+        if (pendingRecord.length() > maxRecordSize) {
+            pendingRecord = null;
+            return List.of(Row.failed(recordStartLine, "Запись длиннее " + maxRecordSize + " символов"));
+        }
+
+        if (hasOpenQuote(pendingRecord)) {
+            return List.of();
+        }
+
+        String record = pendingRecord.toString();
+        pendingRecord = null;
+
+        List<String> fields = splitCsv(record);
+        if (header == null) {
+            header = parseHeader(fields);
+            return List.of();
+        }
+
+        return List.of(parseCsv(fields));
+    }
+
+    private List<Row> finish() {
+        if (pendingRecord != null) {
+            pendingRecord = null;
+            return List.of(Row.failed(recordStartLine, "Не закрыты кавычки в поле"));
+        }
+        return List.of();
+    }
+
+    private Row parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return Row.failed(lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+        }
+
+        if (!node.isObject()) {
+            return Row.failed(lineNumber, "Строка должна содержать JSON-объект");
+        }
+
+        return toRow(
+            lineNumber,
+            text(node, "name"),
+            text(node, "description"),
+            text(node, "price"),
+            text(node, "imageFileName"),
+            text(node, "isActive")
+        );
+    }
+
+    private Row parseCsv(List<String> fields) {
+        if (fields.size() != header.size()) {
+            return Row.failed(
+                recordStartLine,
+                "Ожидалось полей: " + header.size() + ", получено: " + fields.size()
+            );
+        }
+
+        return toRow(
+            recordStartLine,
+            field(fields, "name"),
+            field(fields, "description"),
+            field(fields, "price"),
+            field(fields, "imageFileName"),
+            field(fields, "isActive")
+        );
+    }
+
+    private Row toRow(long line, String name, String description, String price, String imageFileName, String isActive) {
+        if (name == null || name.isBlank()) {
+            return Row.failed(line, "Не задано название");
+        }
+        if (name.length() > NAME_MAX_LENGTH) {
+            return Row.failed(line, "Название длиннее " + NAME_MAX_LENGTH + " символов");
+        }
+        if (description != null && description.length() > DESCRIPTION_MAX_LENGTH) {
+            return Row.failed(line, "Описание длиннее " + DESCRIPTION_MAX_LENGTH + " символов");
+        }
+        if (imageFileName != null && imageFileName.length() > IMAGE_FILE_NAME_MAX_LENGTH) {
+            return Row.failed(line, "Имя файла изображения длиннее " + IMAGE_FILE_NAME_MAX_LENGTH + " символов");
+        }
+
+        BigDecimal parsedPrice;
+        try {
+            parsedPrice = new BigDecimal(price == null ? "" : price.trim()).setScale(2, RoundingMode.UNNECESSARY);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return Row.failed(line, "Некорректная цена: " + price);
+        }
+        if (parsedPrice.signum() < 0) {
+            return Row.failed(line, "Цена не может быть отрицательной");
+        }
+
+        Boolean active;
+        if (isActive == null || isActive.isBlank()) {
+            active = true;
+        } else if ("true".equalsIgnoreCase(isActive.trim()) || "false".equalsIgnoreCase(isActive.trim())) {
+            active = Boolean.parseBoolean(isActive.trim());
+        } else {
+            return Row.failed(line, "Некорректный признак активности: " + isActive);
+        }
+
+        ItemEntity item = ItemEntity.builder()
+            .name(name.trim())
+            .description(description == null || description.isEmpty() ? null : description)
+            .price(parsedPrice)
+            .imageFileName(imageFileName == null || imageFileName.isBlank() ? null : imageFileName.trim())
+            .isActive(active)
+            .build();
+
+        return new Row(line, item, null);
+    }
+
+    /**
+     * Заголовок обязателен: по нему определяется порядок колонок. Лишние колонки (например, id
+     * из выгрузки) игнорируются.
+     */
+    private static Map<String, Integer> parseHeader(List<String> fields) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            columns.put(fields.get(i).trim(), i);
+        }
+
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new IllegalArgumentException("В заголовке CSV должны быть колонки name и price");
+        }
+
+        return columns;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = header.get(column);
+        return index != null ? fields.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * Экранированная кавычка записывается двумя кавычками, поэтому нечётное их число означает,
+     * что запись продолжается на следующей строке
+     */
+    private static boolean hasOpenQuote(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 != 0;
+    }
+
+    private static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+}
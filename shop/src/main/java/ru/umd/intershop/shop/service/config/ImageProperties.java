@@ -0,0 +1,140 @@
+package ru.umd.intershop.shop.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.umd.intershop.shop.common.constant.ImageVariantEnum;
+
+import java.time.Duration;
+
+/**
+ * Настройки обработки изображений товаров, значения загружаются из конфигурации приложения
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.images")
+public class ImageProperties {
+    /**
+     * Наибольшая сторона миниатюры для сетки каталога, px
+     */
+    private int thumbnailSize = 300;
+
+    /**
+     * Наибольшая сторона изображения для страницы товара, px
+     */
+    private int detailSize = 800;
+
+    /**
+     * Сколько изображений обрабатывается одновременно
+     */
+    private int workers = 2;
+
+    /**
+     * Сколько потоков выполняют запись загруженных файлов на диск
+     */
+    private int storageWorkers = 4;
+
+    /**
+     * Наибольший размер загружаемого изображения, загрузка сверх него прерывается
+     */
+    private DataSize maxUploadSize = DataSize.ofMegabytes(10);
+
+    /**
+     * Сколько изображений может ждать обработки, сверх этого загрузка сохраняет только оригинал
+     */
+    private int queueSize = 64;
+
+    /**
+     * Качество сжатия JPEG-вариантов, от 0 до 1
+     */
+    private float jpegQuality = 0.85f;
+
+    /**
+     * Изображения с большим числом пикселей не декодируются, чтобы не исчерпать память
+     */
+    private long maxSourcePixels = 40_000_000L;
+
+    /**
+     * Сколько браузер хранит изображение без повторной проверки. Имена файлов уникальны и содержимое
+     * по ним не меняется, поэтому ответ помечается как immutable. Нулевое значение отключает кэширование.
+     */
+    private Duration cacheMaxAge = Duration.ofDays(365);
+
+    public int size(ImageVariantEnum variant) {
+        return switch (variant) {
+            case THUMBNAIL -> thumbnailSize;
+            case DETAIL -> detailSize;
+        };
+    }
+
+    public int getThumbnailSize() {
+        return thumbnailSize;
+    }
+
+    public void setThumbnailSize(int thumbnailSize) {
+        this.thumbnailSize = thumbnailSize;
+    }
+
+    public int getDetailSize() {
+        return detailSize;
+    }
+
+    public void setDetailSize(int detailSize) {
+        this.detailSize = detailSize;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getStorageWorkers() {
+        return storageWorkers;
+    }
+
+    public void setStorageWorkers(int storageWorkers) {
+        this.storageWorkers = storageWorkers;
+    }
+
+    public DataSize getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    public void setMaxUploadSize(DataSize maxUploadSize) {
+        this.maxUploadSize = maxUploadSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+    public void setJpegQuality(float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+    }
+
+    public long getMaxSourcePixels() {
+        return maxSourcePixels;
+    }
+
+    public void setMaxSourcePixels(long maxSourcePixels) {
+        this.maxSourcePixels = maxSourcePixels;
+    }
+
+    public Duration getCacheMaxAge() {
+        return cacheMaxAge;
+    }
+
+    public void setCacheMaxAge(Duration cacheMaxAge) {
+        this.cacheMaxAge = cacheMaxAge;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.umd.intershop.shop.service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Заказ, подготовленный к оплате, и сумма, которую нужно списать
+ */
+@Data
+@Builder
+public class CheckoutDto {
+    private Long orderId;
+
+    private BigDecimal totalPrice;
+
+    /**
+     * Оформляемые позиции корзины из Redis; в режиме DATABASE не заполняется
+     */
+    private Map<Long, Integer> cartCounts;
+}
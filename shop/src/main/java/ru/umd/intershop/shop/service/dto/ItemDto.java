@@ -2,6 +2,7 @@ package ru.umd.intershop.shop.service.dto;
 
 import lombok.Builder;
 import lombok.Data;
+import ru.umd.intershop.shop.common.constant.ImageVariantEnum;
 
 import java.math.BigDecimal;
 
@@ -21,4 +22,8 @@ public class ItemDto {
     public String getImagePath() {
         return "images/" + imageFileName;
     }
+
+    public String getImagePath(ImageVariantEnum variant) {
+        return variant.path(imageFileName);
+    }
 }
@@ -18,4 +18,14 @@ public class ItemPageDto {
     private int page;
 
     private int pageSize;
+
+    /**
+     * Токен следующей страницы в режиме keyset-пагинации
+     */
+    private String nextCursor;
+
+    /**
+     * Токен предыдущей страницы в режиме keyset-пагинации
+     */
+    private String previousCursor;
 }
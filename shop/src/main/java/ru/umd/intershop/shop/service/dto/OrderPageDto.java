@@ -0,0 +1,23 @@
+package ru.umd.intershop.shop.service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPageDto {
+    private List<OrderDto> orderList;
+
+    private int page;
+
+    private int pageSize;
+
+    /**
+     * Есть ли заказы за пределами страницы. Общее число заказов не считается: для перехода
+     * по страницам истории оно не нужно, а COUNT по всей истории растёт вместе с ней
+     */
+    private boolean hasNext;
+}
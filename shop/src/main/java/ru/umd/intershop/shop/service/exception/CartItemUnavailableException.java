@@ -0,0 +1,9 @@
+package ru.umd.intershop.shop.service.exception;
+
+import java.util.List;
+
+public class CartItemUnavailableException extends RuntimeException {
+    public CartItemUnavailableException(List<Long> itemIds) {
+        super("Товары корзины недоступны для заказа: " + itemIds);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.umd.intershop.shop.service.exception;
+
+public class CheckoutTotalChangedException extends RuntimeException {
+    public CheckoutTotalChangedException(Long orderId) {
+        super("Сумма заказа id=" + orderId + " изменилась после подготовки к оплате");
+    }
+}
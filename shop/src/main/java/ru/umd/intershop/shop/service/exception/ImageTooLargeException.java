@@ -0,0 +1,7 @@
+package ru.umd.intershop.shop.service.exception;
+
+public class ImageTooLargeException extends RuntimeException {
+    public ImageTooLargeException(long maxSize) {
+        super("Размер изображения превышает " + maxSize + " байт");
+    }
+}
@@ -0,0 +1,163 @@
+package ru.umd.intershop.shop.service.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.umd.intershop.shop.service.config.ImageProperties;
+import ru.umd.intershop.shop.service.exception.ImageTooLargeException;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сохранение загруженных изображений товаров. Файл пишется потоком во временный файл, по пути
+ * считаются размер и SHA-256 содержимого. Итоговое имя - хэш содержимого, поэтому одинаковые
+ * изображения хранятся на диске один раз. Работа с файловой системой выполняется на отдельном
+ * ограниченном пуле потоков, а не на потоках обработки запросов.
+ */
+@Slf4j
+@Service
+public class ImageStorageService {
+    private static final int MAX_EXTENSION_LENGTH = 5;
+
+    private static final String UPLOAD_DIRECTORY = ".upload";
+
+    private final ImageProperties imageProperties;
+
+    private final ImageVariantService imageVariantService;
+
+    private final Path imageDirectory;
+
+    private final Scheduler scheduler;
+
+    public ImageStorageService(
+        ImageProperties imageProperties,
+        ImageVariantService imageVariantService,
+        @Value("${app.image-file-base-path}") String imageBasePath
+    ) {
+        this.imageProperties = imageProperties;
+        this.imageVariantService = imageVariantService;
+        this.imageDirectory = Path.of(imageBasePath);
+        this.scheduler = Schedulers.newBoundedElastic(
+            imageProperties.getStorageWorkers(),
+            imageProperties.getQueueSize(),
+            "image-storage"
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Сохраняет изображение и возвращает имя файла. Загрузка больше допустимого размера
+     * прерывается, как только предел превышен, и завершается {@link ImageTooLargeException}.
+     */
+    public Mono<String> store(Flux<DataBuffer> content, String originalFileName) {
+        String extension = extensionOf(originalFileName);
+        long maxSize = imageProperties.getMaxUploadSize().toBytes();
+
+        return Mono
+            .fromCallable(() -> {
+                // Временные файлы на том же диске, что и изображения: перенос будет атомарным.
+                // Скрытый каталог загрузок не отдаётся по /images/**
+                Path uploads = Files.createDirectories(imageDirectory.resolve(UPLOAD_DIRECTORY));
+                return Files.createTempFile(uploads, "upload-", ".tmp");
+            })
+            .subscribeOn(scheduler)
+            .flatMap(temporary -> {
+                MessageDigest digest = sha256();
+                AtomicLong size = new AtomicLong();
+
+                Flux<DataBuffer> measured = content.handle((buffer, sink) -> {
+                    if (size.addAndGet(buffer.readableByteCount()) > maxSize) {
+                        DataBufferUtils.release(buffer);
+                        sink.error(new ImageTooLargeException(maxSize));
+                        return;
+                    }
+                    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                        iterator.forEachRemaining(digest::update);
+                    }
+                    sink.next(buffer);
+                });
+
+                return DataBufferUtils
+                    .write(measured, temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                    .then(Mono.fromCallable(() -> HexFormat.of().formatHex(digest.digest()) + extension))
+                    .flatMap(fileName -> publish(temporary, fileName))
+                    .onErrorResume(e -> Mono
+                        .fromRunnable(() -> deleteQuietly(temporary))
+                        .subscribeOn(scheduler)
+                        .then(Mono.error(e)));
+            });
+    }
+
+    /**
+     * Переносит временный файл под именем по хэшу. Если такое изображение уже есть, загрузка
+     * отбрасывается вместе с обработкой вариантов: они созданы при первой загрузке.
+     */
+    private Mono<String> publish(Path temporary, String fileName) {
+        Path target = imageDirectory.resolve(fileName);
+
+        return Mono
+            .fromCallable(() -> {
+                if (Files.exists(target)) {
+                    Files.delete(temporary);
+                    return false;
+                }
+                // Одновременная загрузка того же изображения заменит файл таким же содержимым
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                return true;
+            })
+            .subscribeOn(scheduler)
+            .flatMap(created -> {
+                if (!created) {
+                    log.info("Изображение {} уже загружено, используется существующий файл", fileName);
+                    return Mono.just(fileName);
+                }
+                return imageVariantService.generateVariants(target).thenReturn(fileName);
+            });
+    }
+
+    private static String extensionOf(String originalFileName) {
+        if (originalFileName == null || !originalFileName.contains(".")) {
+            return "";
+        }
+
+        String extension = originalFileName
+            .substring(originalFileName.lastIndexOf('.') + 1)
+            .toLowerCase(Locale.ROOT);
+
+        // Расширение попадает в путь к файлу, поэтому допускаются только латинские буквы и цифры
+        return extension.matches("[a-z0-9]{1," + MAX_EXTENSION_LENGTH + "}") ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}: {}", path, e.getMessage());
+        }
+    }
+}
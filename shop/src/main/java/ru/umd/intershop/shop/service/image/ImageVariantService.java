@@ -0,0 +1,192 @@
+package ru.umd.intershop.shop.service.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.umd.intershop.shop.common.constant.ImageVariantEnum;
+import ru.umd.intershop.shop.service.config.ImageProperties;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Уменьшенные копии загруженных изображений товаров. Декодирование и масштабирование
+ * выполняются на отдельном ограниченном пуле потоков с ограниченной очередью, чтобы
+ * одновременные загрузки не занимали потоки обработки запросов и не исчерпывали память.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+    private final ImageProperties imageProperties;
+
+    private final Scheduler scheduler;
+
+    public ImageVariantService(ImageProperties imageProperties) {
+        this.imageProperties = imageProperties;
+        this.scheduler = Schedulers.newBoundedElastic(
+            imageProperties.getWorkers(),
+            imageProperties.getQueueSize(),
+            "image-variants"
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Создаёт все варианты изображения рядом с оригиналом. Ошибка обработки не считается ошибкой
+     * загрузки: без варианта каталог покажет оригинал.
+     */
+    public Mono<Void> generateVariants(Path original) {
+        return Flux.fromArray(ImageVariantEnum.values())
+            .concatMap(variant -> Mono
+                .fromCallable(() -> {
+                    writeVariant(original, variant);
+                    return variant;
+                })
+                .subscribeOn(scheduler))
+            .doOnComplete(() -> log.debug("Созданы варианты изображения {}", original.getFileName()))
+            .onErrorResume(e -> {
+                log.warn("Не удалось создать варианты изображения {}: {}", original.getFileName(), e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private void writeVariant(Path original, ImageVariantEnum variant) throws IOException {
+        String fileName = original.getFileName().toString();
+        String format = formatOf(fileName);
+        Path target = original.resolveSibling(variant.getDirectory()).resolve(fileName);
+        Files.createDirectories(target.getParent());
+
+        BufferedImage source = read(original);
+        int size = imageProperties.size(variant);
+        if (source.getWidth() <= size && source.getHeight() <= size) {
+            // Изображение уже не больше варианта, пересжатие только ухудшит его
+            Files.copy(original, target, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+
+        BufferedImage scaled = scale(source, size, !"png".equals(format) && !"gif".equals(format));
+
+        // Запись во временный файл и переименование: клиент не увидит недописанный вариант
+        Path temporary = Files.createTempFile(target.getParent(), fileName, ".tmp");
+        try {
+            write(scaled, format, temporary);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Размеры проверяются по заголовку до декодирования пикселей
+     */
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("неподдерживаемый формат изображения");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > imageProperties.getMaxSourcePixels()) {
+                    throw new IOException("изображение слишком большое: " + pixels + " пикселей");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Уменьшение с сохранением пропорций. Большие изображения уменьшаются вдвое за шаг:
+     * билинейная интерполяция за один шаг дала бы заметные артефакты.
+     */
+    private static BufferedImage scale(BufferedImage source, int size, boolean opaque) {
+        double ratio = Math.min((double) size / source.getWidth(), (double) size / source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                if (opaque) {
+                    // Прозрачные области JPEG без фона стали бы чёрными
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("нет кодировщика для формата " + format);
+        }
+
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(imageProperties.getJpegQuality());
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Вариант сохраняется в формате оригинала, чтобы имя файла и тип содержимого совпадали
+     */
+    private static String formatOf(String fileName) {
+        String extension = fileName.contains(".") ?
+            fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT) :
+            "";
+
+        return switch (extension) {
+            case "jpg", "jpeg" -> "jpeg";
+            case "png", "gif", "bmp" -> extension;
+            default -> "png";
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package ru.umd.intershop.shop.service.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.data.config.CatalogProperties;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая выгрузка всех активных товаров. Строки читаются из БД порциями и кодируются
+ * фрагментами по мере того, как клиент их забирает, поэтому память не зависит от размера каталога.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogExportService {
+    private static final String CSV_HEADER = "id,name,description,price,imageFileName,isActive\n";
+
+    private final ItemRepository itemRepository;
+
+    private final CatalogProperties catalogProperties;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Фрагменты выгрузки в заданном формате. При {@code gzip} все фрагменты вместе образуют один
+     * gzip-поток, каждый фрагмент сбрасывается целиком и сразу может быть распакован клиентом.
+     */
+    public Flux<byte[]> export(ExportFormatEnum format, boolean gzip) {
+        return Flux.defer(() -> {
+            CatalogProperties.Export properties = catalogProperties.getExport();
+            Flux<byte[]> chunks = itemRepository
+                .streamActive(properties.getFetchSize())
+                .map(ExportedItem::from)
+                .buffer(properties.getChunkSize())
+                .map(items -> encode(items, format));
+
+            if (format == ExportFormatEnum.CSV) {
+                chunks = Flux.just(CSV_HEADER.getBytes(StandardCharsets.UTF_8)).concatWith(chunks);
+            }
+
+            if (!gzip) {
+                return chunks;
+            }
+
+            Flux<byte[]> plain = chunks;
+            // При отмене подписки компрессор освобождается, не дожидаясь конца выгрузки
+            return Flux.using(
+                GzipChunkEncoder::new,
+                encoder -> plain
+                    .map(encoder::encode)
+                    .concatWith(Mono.fromCallable(encoder::finish)),
+                GzipChunkEncoder::close
+            );
+        })
+            .doOnError(e -> log.error("Ошибка при выгрузке каталога в формате {}: {}", format, e.getMessage()));
+    }
+
+    private byte[] encode(List<ExportedItem> items, ExportFormatEnum format) {
+        StringBuilder chunk = new StringBuilder(items.size() * 128);
+        for (ExportedItem item : items) {
+            if (format == ExportFormatEnum.NDJSON) {
+                chunk.append(toJson(item)).append('\n');
+            } else {
+                chunk.append(item.id()).append(',')
+                    .append(csvField(item.name())).append(',')
+                    .append(csvField(item.description())).append(',')
+                    .append(item.price() != null ? item.price().toPlainString() : "").append(',')
+                    .append(csvField(item.imageFileName())).append(',')
+                    .append(item.isActive()).append('\n');
+            }
+        }
+
+        return chunk.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String toJson(ExportedItem item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать товар id=" + item.id(), e);
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Строка выгрузки: только поля, которые читает импорт каталога. Вычисляемые поля DTO
+     * витрины (пути к изображениям) в выгрузку не попадают.
+     */
+    private record ExportedItem(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        String imageFileName,
+        Boolean isActive
+    ) {
+        static ExportedItem from(ItemEntity item) {
+            return new ExportedItem(
+                item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getPrice(),
+                item.getImageFileName(),
+                item.getIsActive()
+            );
+        }
+    }
+
+    /**
+     * Сжатие фрагментов одним gzip-потоком. SYNC_FLUSH после каждого фрагмента отдаёт всё
+     * накопленное, не дожидаясь заполнения буфера компрессора. Экземпляр принадлежит одной
+     * подписке и вызывается последовательно.
+     */
+    private static class GzipChunkEncoder {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private final GZIPOutputStream gzip;
+
+        GzipChunkEncoder() {
+            try {
+                gzip = new GZIPOutputStream(buffer, 8192, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] encode(byte[] chunk) {
+            try {
+                gzip.write(chunk);
+                gzip.flush();
+                return drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] finish() throws IOException {
+            gzip.close();
+            return drain();
+        }
+
+        void close() {
+            try {
+                gzip.close();
+            } catch (IOException e) {
+                log.warn("Ошибка при закрытии gzip-потока выгрузки: {}", e.getMessage());
+            }
+        }
+
+        private byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package ru.umd.intershop.shop.service.item;
+
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.service.dto.ItemDto;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Неизменяемый колоночный снимок активных товаров. Товар задаётся позицией в массивах колонок,
+ * для каждой сортировки заранее построена перестановка позиций, а для поиска - индекс
+ * триграмм названия (позиции в списках возрастают). Изменения применяются копированием,
+ * поэтому читатели работают со снимком без блокировок.
+ * <p>
+ * Порядок по названию не вычисляется в Java: он берётся из БД, чтобы совпадать с её правилами
+ * сравнения строк и курсоры страниц из памяти оставались верными для выборки из БД.
+ */
+final class CatalogSnapshot {
+    private static final int GRAM = 3;
+
+    private final long generation;
+
+    private final long[] ids;
+
+    private final String[] names;
+
+    private final String[] lowerNames;
+
+    private final BigDecimal[] prices;
+
+    private final String[] descriptions;
+
+    private final String[] imageFileNames;
+
+    private final int[] byId;
+
+    private final int[] byName;
+
+    private final int[] byPrice;
+
+    private final Map<String, int[]> trigrams;
+
+    private final Map<Long, Integer> positions;
+
+    private CatalogSnapshot(
+        long generation,
+        long[] ids,
+        String[] names,
+        String[] lowerNames,
+        BigDecimal[] prices,
+        String[] descriptions,
+        String[] imageFileNames,
+        int[] byId,
+        int[] byName,
+        int[] byPrice,
+        Map<String, int[]> trigrams,
+        Map<Long, Integer> positions
+    ) {
+        this.generation = generation;
+        this.ids = ids;
+        this.names = names;
+        this.lowerNames = lowerNames;
+        this.prices = prices;
+        this.descriptions = descriptions;
+        this.imageFileNames = imageFileNames;
+        this.byId = byId;
+        this.byName = byName;
+        this.byPrice = byPrice;
+        this.trigrams = trigrams;
+        this.positions = positions;
+    }
+
+    /**
+     * @param items товары в порядке сортировки по названию в БД: {@code ORDER BY name, id}
+     */
+    static CatalogSnapshot build(List<ItemDto> items, long generation) {
+        int size = items.size();
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        String[] lowerNames = new String[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        String[] descriptions = new String[size];
+        String[] imageFileNames = new String[size];
+        Map<Long, Integer> positions = new HashMap<>(size * 2);
+        Map<String, List<Integer>> postings = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            ItemDto item = items.get(i);
+            ids[i] = item.getId();
+            names[i] = item.getName() != null ? item.getName() : "";
+            lowerNames[i] = lower(names[i]);
+            prices[i] = item.getPrice() != null ? item.getPrice() : BigDecimal.ZERO;
+            descriptions[i] = item.getDescription();
+            imageFileNames[i] = item.getImageFileName();
+            positions.put(ids[i], i);
+
+            for (String gram : grams(lowerNames[i])) {
+                postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> trigrams = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, list) -> trigrams.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+
+        CatalogSnapshot snapshot = new CatalogSnapshot(
+            generation, ids, names, lowerNames, prices, descriptions, imageFileNames,
+            null, null, null, trigrams, positions
+        );
+
+        return new CatalogSnapshot(
+            generation, ids, names, lowerNames, prices, descriptions, imageFileNames,
+            snapshot.sorted(ItemSortingEnum.NO, size),
+            IntStream.range(0, size).toArray(),
+            snapshot.sorted(ItemSortingEnum.PRICE, size),
+            trigrams,
+            positions
+        );
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Снимок с добавленным, изменённым или снятым с продажи товаром. Новый товар вставляется
+     * в перестановки и списки триграмм без пересортировки, изменение существующего
+     * перестраивает снимок целиком.
+     *
+     * @param nameRank число остальных активных товаров, предшествующих этому в сортировке БД по названию
+     */
+    CatalogSnapshot withItem(ItemDto item, boolean active, long nameRank, long newGeneration) {
+        Integer existing = positions.get(item.getId());
+        if (existing != null) {
+            List<ItemDto> items = new ArrayList<>(ids.length);
+            for (int position : byName) {
+                if (position != existing) {
+                    items.add(itemAt(position));
+                }
+            }
+            if (active) {
+                items.add((int) Math.min(nameRank, items.size()), item);
+            }
+            return build(items, newGeneration);
+        }
+
+        if (!active) {
+            return withGeneration(newGeneration);
+        }
+
+        int position = ids.length;
+        int size = position + 1;
+        String name = item.getName() != null ? item.getName() : "";
+
+        long[] newIds = Arrays.copyOf(ids, size);
+        String[] newNames = Arrays.copyOf(names, size);
+        String[] newLowerNames = Arrays.copyOf(lowerNames, size);
+        BigDecimal[] newPrices = Arrays.copyOf(prices, size);
+        String[] newDescriptions = Arrays.copyOf(descriptions, size);
+        String[] newImageFileNames = Arrays.copyOf(imageFileNames, size);
+        newIds[position] = item.getId();
+        newNames[position] = name;
+        newLowerNames[position] = lower(name);
+        newPrices[position] = item.getPrice() != null ? item.getPrice() : BigDecimal.ZERO;
+        newDescriptions[position] = item.getDescription();
+        newImageFileNames[position] = item.getImageFileName();
+
+        Map<Long, Integer> newPositions = new HashMap<>(positions);
+        newPositions.put(item.getId(), position);
+
+        // Позиция нового товара больше всех прежних, поэтому списки триграмм остаются упорядоченными
+        Map<String, int[]> newTrigrams = new HashMap<>(trigrams);
+        for (String gram : grams(newLowerNames[position])) {
+            int[] posting = newTrigrams.getOrDefault(gram, new int[0]);
+            int[] extended = Arrays.copyOf(posting, posting.length + 1);
+            extended[posting.length] = position;
+            newTrigrams.put(gram, extended);
+        }
+
+        CatalogSnapshot columns = new CatalogSnapshot(
+            newGeneration, newIds, newNames, newLowerNames, newPrices, newDescriptions, newImageFileNames,
+            null, null, null, newTrigrams, newPositions
+        );
+
+        return new CatalogSnapshot(
+            newGeneration, newIds, newNames, newLowerNames, newPrices, newDescriptions, newImageFileNames,
+            columns.insertSorted(byId, position, ItemSortingEnum.NO),
+            insertAt(byName, (int) Math.min(nameRank, byName.length), position),
+            columns.insertSorted(byPrice, position, ItemSortingEnum.PRICE),
+            newTrigrams,
+            newPositions
+        );
+    }
+
+    /**
+     * Страница активных товаров в порядке сортировки. При ранжированном поиске без сортировки
+     * товары ранжируются по сходству запроса со словами названия, как word_similarity в БД.
+     */
+    Slice page(int page, int pageSize, ItemSortingEnum sort, String search, boolean ranked) {
+        int[] order;
+        if (search == null || search.isEmpty()) {
+            order = permutation(sort);
+        } else {
+            String query = lower(search);
+            BitSet matches = match(query);
+            order = sort == ItemSortingEnum.NO && ranked ?
+                rankBySimilarity(matches, query) :
+                Arrays.stream(permutation(sort)).filter(matches::get).toArray();
+        }
+
+        long offset = (long) page * pageSize;
+        List<ItemDto> items = new ArrayList<>(pageSize);
+        for (long i = offset; i < order.length && i < offset + pageSize; i++) {
+            items.add(itemAt(order[(int) i]));
+        }
+
+        return new Slice(items, order.length);
+    }
+
+    record Slice(List<ItemDto> items, long totalItems) {
+    }
+
+    private CatalogSnapshot withGeneration(long newGeneration) {
+        return new CatalogSnapshot(
+            newGeneration, ids, names, lowerNames, prices, descriptions, imageFileNames,
+            byId, byName, byPrice, trigrams, positions
+        );
+    }
+
+    private ItemDto itemAt(int position) {
+        return ItemDto.builder()
+            .id(ids[position])
+            .name(names[position])
+            .price(prices[position])
+            .description(descriptions[position])
+            .imageFileName(imageFileNames[position])
+            .build();
+    }
+
+    /**
+     * Кандидаты берутся пересечением списков триграмм запроса, затем проверяется вхождение подстроки
+     */
+    private BitSet match(String query) {
+        BitSet matches = new BitSet(ids.length);
+        if (query.length() < GRAM) {
+            for (int i = 0; i < ids.length; i++) {
+                if (lowerNames[i].contains(query)) {
+                    matches.set(i);
+                }
+            }
+            return matches;
+        }
+
+        List<int[]> postings = new ArrayList<>();
+        for (String gram : grams(query)) {
+            int[] posting = trigrams.get(gram);
+            if (posting == null) {
+                return matches;
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(posting -> posting.length));
+
+        for (int position : postings.get(0)) {
+            matches.set(position);
+        }
+        for (int i = 1; i < postings.size(); i++) {
+            BitSet other = new BitSet(ids.length);
+            for (int position : postings.get(i)) {
+                other.set(position);
+            }
+            matches.and(other);
+        }
+
+        for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+            if (!lowerNames[position].contains(query)) {
+                matches.clear(position);
+            }
+        }
+
+        return matches;
+    }
+
+    private int[] rankBySimilarity(BitSet matches, String query) {
+        Set<String> queryGrams = new HashSet<>(wordTrigrams(query));
+        Map<Integer, Float> similarity = new HashMap<>();
+        matches.stream().forEach(position -> similarity.put(position, wordSimilarity(queryGrams, lowerNames[position])));
+
+        return matches.stream()
+            .boxed()
+            .sorted(Comparator.<Integer>comparingDouble(similarity::get).reversed()
+                        .thenComparingLong(position -> ids[position]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    private int[] permutation(ItemSortingEnum sort) {
+        return switch (sort) {
+            case NO -> byId;
+            case ALPHA -> byName;
+            case PRICE -> byPrice;
+        };
+    }
+
+    private int[] sorted(ItemSortingEnum sort, int size) {
+        return IntStream.range(0, size)
+            .boxed()
+            .sorted((a, b) -> compare(sort, a, b))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    private int[] insertSorted(int[] order, int position, ItemSortingEnum sort) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(sort, order[middle], position) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return insertAt(order, low, position);
+    }
+
+    private static int[] insertAt(int[] order, int low, int position) {
+        int[] result = new int[order.length + 1];
+        System.arraycopy(order, 0, result, 0, low);
+        result[low] = position;
+        System.arraycopy(order, low, result, low + 1, order.length - low);
+        return result;
+    }
+
+    /**
+     * Порядок совпадает с выборкой из БД: ключ сортировки, затем id. Названия так не сравниваются,
+     * их порядок приходит из БД.
+     */
+    private int compare(ItemSortingEnum sort, int a, int b) {
+        int result = switch (sort) {
+            case NO -> 0;
+            case PRICE -> prices[a].compareTo(prices[b]);
+            case ALPHA -> throw new IllegalArgumentException("Порядок по названию задаётся БД");
+        };
+
+        return result != 0 ? result : Long.compare(ids[a], ids[b]);
+    }
+
+    /**
+     * Сходство как у word_similarity из pg_trgm: наибольшая доля общих триграмм запроса
+     * и непрерывного отрезка упорядоченных триграмм названия. Отрезок подбирается тем же
+     * проходом, что и в pg_trgm, чтобы ранжирование совпадало с БД.
+     */
+    static float wordSimilarity(Set<String> queryGrams, String name) {
+        List<String> nameGrams = wordTrigrams(name);
+        if (queryGrams.isEmpty() || nameGrams.isEmpty()) {
+            return 0;
+        }
+
+        int queryCount = queryGrams.size();
+        Map<String, Integer> lastPositions = new HashMap<>();
+        int lower = -1;
+        int common = 0;
+        int extentCount = 0;
+        float best = 0;
+
+        for (int i = 0; i < nameGrams.size(); i++) {
+            String gram = nameGrams.get(i);
+            boolean found = queryGrams.contains(gram);
+
+            if (lower >= 0 || found) {
+                if (lastPositions.getOrDefault(gram, -1) < 0) {
+                    extentCount++;
+                    if (found) {
+                        common++;
+                    }
+                }
+                lastPositions.put(gram, i);
+            }
+            if (!found) {
+                continue;
+            }
+
+            if (lower == -1) {
+                lower = i;
+                extentCount = 1;
+            }
+
+            // Отрезок заканчивается на этой триграмме, его начало сдвигается, пока сходство растёт
+            float current = similarity(common, queryCount, extentCount);
+            int candidateCommon = common;
+            int candidateCount = extentCount;
+            int previousLower = lower;
+            for (int candidateLower = lower; candidateLower <= i; candidateLower++) {
+                float candidate = similarity(candidateCommon, queryCount, candidateCount);
+                if (candidate > current) {
+                    current = candidate;
+                    extentCount = candidateCount;
+                    lower = candidateLower;
+                    common = candidateCommon;
+                }
+
+                String dropped = nameGrams.get(candidateLower);
+                if (lastPositions.get(dropped) == candidateLower) {
+                    candidateCount--;
+                    if (queryGrams.contains(dropped)) {
+                        candidateCommon--;
+                    }
+                }
+            }
+            best = Math.max(best, current);
+
+            for (int dropped = previousLower; dropped < lower; dropped++) {
+                String released = nameGrams.get(dropped);
+                if (lastPositions.get(released) == dropped) {
+                    lastPositions.put(released, -1);
+                }
+            }
+        }
+
+        return best;
+    }
+
+    private static float similarity(int common, int firstCount, int secondCount) {
+        return (float) common / (firstCount + secondCount - common);
+    }
+
+    /**
+     * Триграммы слов в порядке следования, с повторами. Слово дополняется двумя пробелами
+     * в начале и одним в конце, как в pg_trgm.
+     */
+    private static List<String> wordTrigrams(String text) {
+        List<String> result = new ArrayList<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                String padded = "  " + word + " ";
+                for (int i = 0; i + GRAM <= padded.length(); i++) {
+                    result.add(padded.substring(i, i + GRAM));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static String lower(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,6 +2,7 @@ package ru.umd.intershop.shop.service.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.*;
 import org.springframework.data.redis.core.ReactiveRedisOperations;
 import org.springframework.stereotype.Service;
@@ -9,9 +10,20 @@ import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.common.constant.PageCacheModeEnum;
+import ru.umd.intershop.shop.common.constant.PagingModeEnum;
+import ru.umd.intershop.shop.common.constant.SearchModeEnum;
+import ru.umd.intershop.shop.data.cache.ActiveItemCount;
+import ru.umd.intershop.shop.data.cache.CacheExpiry;
+import ru.umd.intershop.shop.data.cache.CacheLoadCoalescer;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.cache.ItemContentChangedEvent;
+import ru.umd.intershop.shop.data.cache.ItemNearCache;
+import ru.umd.intershop.shop.data.cache.ItemPageIndex;
 import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
 import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
 import ru.umd.intershop.shop.data.config.CacheProperties;
+import ru.umd.intershop.shop.data.config.CatalogProperties;
 import ru.umd.intershop.shop.data.entity.ItemEntity;
 import ru.umd.intershop.shop.data.repository.ItemRepository;
 import ru.umd.intershop.shop.service.dto.ItemDto;
@@ -19,14 +31,15 @@ import ru.umd.intershop.shop.service.dto.ItemPageDto;
 import ru.umd.intershop.shop.service.exception.NotFoundException;
 import ru.umd.intershop.shop.service.item.mapper.ItemServiceMapper;
 
-import java.time.Duration;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DefaultItemService implements ItemService {
+    private static final String PAGE_KEY_PREFIX = "items:page:";
+
     private final ItemRepository itemRepository;
 
     private final ItemServiceMapper itemServiceMapper;
@@ -37,140 +50,508 @@ public class DefaultItemService implements ItemService {
 
     private final CacheProperties cacheProperties;
 
+    private final CatalogProperties catalogProperties;
+
+    private final ItemNearCache itemNearCache;
+
+    private final CatalogGeneration catalogGeneration;
+
+    private final CacheLoadCoalescer cacheLoadCoalescer;
+
+    private final CacheExpiry cacheExpiry;
+
+    private final ActiveItemCount activeItemCount;
+
+    private final InMemoryCatalog inMemoryCatalog;
+
+    private final ItemPageIndex itemPageIndex;
+
     @Override
     public Mono<ItemDto> findById(Long id) {
+        return findItemInCache(id)
+            .switchIfEmpty(
+                cacheLoadCoalescer.coalesce(
+                    "item:" + id,
+                    () -> findItemInCache(id),
+                    () -> loadItemAndCache(id)
+                )
+            )
+            .switchIfEmpty(Mono.error(new NotFoundException("Не найден продукт id=" + id)));
+    }
+
+    @Override
+    public Mono<ItemPageDto> findAllActive(
+        Pageable pageable,
+        ItemSortingEnum sort,
+        String search
+    ) {
+        String effectiveSearch = normalizeSearch(search);
+
+        return inMemoryCatalog
+            .findPage(pageable.getPageNumber(), pageable.getPageSize(), sort, effectiveSearch, isTrigramQuery(effectiveSearch))
+            .map(slice -> buildPage(slice.items(), slice.totalItems(), pageable.getPageNumber(), pageable.getPageSize()))
+            .switchIfEmpty(
+                catalogGeneration
+                    .current()
+                    .flatMap(generation -> {
+                        // Создаем ключ для кэша
+                        String cacheKey = generateItemPageCacheKey(generation, pageable, sort, effectiveSearch);
+
+                        return findPageCached(
+                            cacheKey,
+                            sort,
+                            effectiveSearch,
+                            () -> fetchItemsFromDatabase(pageable, sort, effectiveSearch)
+                        );
+                    })
+            )
+            .map(pageDto -> effectiveSearch == null ? withCursors(pageDto, sort) : pageDto);
+    }
+
+    @Override
+    public Mono<ItemPageDto> findAllActiveByCursor(String cursor, int pageSize, ItemSortingEnum sort) {
+        ItemPageCursor pageCursor = decodeCursor(cursor, sort);
+        if (pageCursor == null) {
+            return findAllActive(PageRequest.of(0, pageSize), sort, null);
+        }
+
+        // Снимок в памяти согласован, поэтому страницу по курсору можно взять по её номеру
+        return inMemoryCatalog
+            .findPage(pageCursor.page(), pageSize, sort, null, false)
+            .map(slice -> buildPage(slice.items(), slice.totalItems(), pageCursor.page(), pageSize))
+            .switchIfEmpty(
+                catalogGeneration
+                    .current()
+                    .flatMap(generation -> {
+                        String cacheKey = PAGE_KEY_PREFIX + generation + ":cursor:" + pageSize + ":" + pageCursor.encode();
+
+                        return findPageCached(cacheKey, sort, null, () -> fetchItemsPageByCursor(pageCursor, pageSize));
+                    })
+            )
+            .map(pageDto -> withCursors(pageDto, sort));
+    }
+
+    /**
+     * Пакетное чтение через кэш: локальный кэш, затем один MGET в Redis и один запрос в БД
+     * только за отсутствующими товарами. Порядок результата совпадает с порядком идентификаторов.
+     */
+    @Override
+    public Flux<ItemDto> findByIds(List<Long> itemIds) {
+        List<Long> ids = itemIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Map<Long, ItemCacheModel> localHits = itemNearCache.getItems(ids);
+        List<Long> notLocalIds = ids.stream().filter(id -> !localHits.containsKey(id)).toList();
+
+        return findItemsInRedis(notLocalIds)
+            .flatMap(redisHits -> {
+                Map<Long, ItemDto> found = new HashMap<>();
+                localHits.forEach((id, model) -> found.put(id, itemServiceMapper.mapCacheModelToDto(model)));
+                redisHits.forEach((id, model) -> {
+                    itemNearCache.putItem(id, model);
+                    found.put(id, itemServiceMapper.mapCacheModelToDto(model));
+                });
+
+                List<Long> missingIds = notLocalIds.stream().filter(id -> !redisHits.containsKey(id)).toList();
+
+                return loadItemsAndCache(missingIds)
+                    .doOnNext(itemDto -> found.put(itemDto.getId(), itemDto))
+                    .then(Mono.just(found));
+            })
+            .flatMapMany(found -> Flux.fromIterable(ids).mapNotNull(found::get));
+    }
+
+    private Mono<Map<Long, ItemCacheModel>> findItemsInRedis(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
         return itemRedisOperations
             .opsForValue()
-            .get(id.toString())
-            .map(itemServiceMapper::mapCacheModelToDto)
-            .doOnSuccess(cached -> {
-                if (cached != null) {
-                    log.debug("Получены данные из кэша для ключа: {}", id);
+            .multiGet(ids.stream().map(String::valueOf).toList())
+            .map(models -> {
+                Map<Long, ItemCacheModel> hits = new HashMap<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    if (models.get(i) != null) {
+                        hits.put(ids.get(i), models.get(i));
+                    }
                 }
+                log.debug("Из кэша получено товаров: {} из {}", hits.size(), ids.size());
+                return hits;
             })
             .onErrorResume(e -> {
-                log.warn("Ошибка при получении товара из кэша: {}", e.getMessage());
-                return Mono.empty();
+                log.warn("Ошибка при пакетном получении товаров из кэша: {}", e.getMessage());
+                return Mono.just(Map.of());
+            });
+    }
+
+    private Flux<ItemDto> loadItemsAndCache(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+
+        // Запись в кэш выполняется без ожидания ответов, команды уходят в Redis одним пайплайном
+        return itemRepository
+            .findByIdIn(ids)
+            .map(itemServiceMapper::map)
+            .flatMap(itemDto -> {
+                ItemCacheModel cacheModel = itemServiceMapper.mapDtoToCacheModel(itemDto);
+                itemNearCache.putItem(itemDto.getId(), cacheModel);
+
+                return itemRedisOperations
+                    .opsForValue()
+                    .set(itemDto.getId().toString(), cacheModel, cacheExpiry.itemTtl())
+                    .onErrorResume(e -> {
+                        log.warn("Ошибка при сохранении в кэш: {}", e.getMessage());
+                        return Mono.just(true);
+                    })
+                    .thenReturn(itemDto);
+            });
+    }
+
+    /**
+     * Обновляет товар только в тех закэшированных страницах текущего поколения, где он присутствует,
+     * находя их по обратному индексу без обхода пространства ключей. Подходит для изменений,
+     * не влияющих на состав и порядок страниц: остальные изменения переключают поколение.
+     */
+    public Mono<Void> updateItemInPageCache(ItemDto updatedItem) {
+        Long itemId = updatedItem.getId();
+        ItemCacheModel updatedModel = itemServiceMapper.mapDtoToCacheModel(updatedItem);
+
+        Mono<List<String>> updatedKeys = Mono
+            .zip(catalogGeneration.current(), itemPageIndex.pagesOf(itemId))
+            .flatMap(tuple -> {
+                String generationPrefix = PAGE_KEY_PREFIX + tuple.getT1() + ":";
+                List<String> pageKeys = tuple.getT2().stream().filter(key -> key.startsWith(generationPrefix)).toList();
+                List<String> outdatedKeys = new ArrayList<>(tuple.getT2().stream().filter(key -> !key.startsWith(generationPrefix)).toList());
+
+                Mono<List<String>> rewritten = pageKeys.isEmpty() ?
+                    Mono.just(List.of()) :
+                    itemPageRedisOperations
+                        .opsForValue()
+                        .multiGet(pageKeys)
+                        .flatMap(pages -> {
+                            Map<String, ItemPageCacheModel> updatedPages = new HashMap<>();
+                            for (int i = 0; i < pageKeys.size(); i++) {
+                                if (pages.get(i) == null) {
+                                    outdatedKeys.add(pageKeys.get(i));
+                                } else {
+                                    updatedPages.put(pageKeys.get(i), replaceItem(pages.get(i), updatedModel));
+                                }
+                            }
+
+                            // Записи отправляются без ожидания ответов и уходят в Redis одним пайплайном.
+                            // Страница, истёкшая после чтения, не создаётся заново
+                            return Flux.fromIterable(updatedPages.entrySet())
+                                .flatMap(entry -> itemPageRedisOperations
+                                    .opsForValue()
+                                    .setIfPresent(entry.getKey(), entry.getValue(), cacheExpiry.itemsPageTtl()))
+                                .then(Mono.just(List.copyOf(updatedPages.keySet())));
+                        });
+
+                return rewritten.flatMap(keys -> itemPageIndex.remove(itemId, outdatedKeys).thenReturn(keys));
+            });
+
+        return itemRedisOperations
+            .opsForValue()
+            .set(itemId.toString(), updatedModel, cacheExpiry.itemTtl())
+            .then(updatedKeys)
+            .onErrorResume(e -> {
+                log.warn("Ошибка при обновлении товара {} в кэше страниц: {}", itemId, e.getMessage());
+                return Mono.just(List.of());
+            })
+            .flatMap(keys -> itemNearCache
+                .invalidateItem(itemId)
+                .then(keys.isEmpty() ? Mono.<Void>empty() : itemNearCache.invalidatePages(keys)));
+    }
+
+    /**
+     * Изменённые мимо приложения товары переписываются в страницах Redis узлом, занявшим транзакцию
+     */
+    @EventListener
+    public void onItemContentChanged(ItemContentChangedEvent event) {
+        if (!event.refreshSharedCache()) {
+            return;
+        }
+
+        itemRepository
+            .findByIdIn(event.itemIds())
+            .map(itemServiceMapper::map)
+            .concatMap(this::updateItemInPageCache)
+            .subscribe(
+                null,
+                e -> log.warn("Ошибка при обновлении товаров {} в кэше страниц: {}", event.itemIds(), e.getMessage())
+            );
+    }
+
+    /**
+     * Время создания страницы сохраняется: состав страницы не менялся, и срок её обновления прежний
+     */
+    private ItemPageCacheModel replaceItem(ItemPageCacheModel page, ItemCacheModel updatedItem) {
+        List<ItemCacheModel> items = page.items().stream()
+            .map(item -> item.id().equals(updatedItem.id()) ? updatedItem : item)
+            .toList();
+
+        return new ItemPageCacheModel(
+            items,
+            page.totalItems(),
+            page.totalPages(),
+            page.page(),
+            page.pageSize(),
+            page.sortField(),
+            page.searchQuery(),
+            page.createdAt(),
+            page.itemIds()
+        );
+    }
+
+    private String generateItemPageCacheKey(long generation, Pageable pageable, ItemSortingEnum sort, String search) {
+        return PAGE_KEY_PREFIX +
+               generation + ":" +
+               pageable.getPageNumber() + ":" +
+               pageable.getPageSize() + ":" +
+               (sort != null ? sort.name() : "NO") + ":" +
+               (StringUtils.hasText(search) ? search.replace(" ", "_") : "noSearch");
+    }
+
+    /**
+     * Страница старше мягкого TTL отдаётся из кэша сразу, а её обновление запускается в фоне,
+     * не больше одного на ключ в узле.
+     * Промах загружается из БД один раз на ключ, даже при одновременных запросах.
+     */
+    private Mono<ItemPageDto> findPageCached(
+        String cacheKey,
+        ItemSortingEnum sort,
+        String search,
+        Supplier<Mono<ItemPageDto>> loader
+    ) {
+        return findPageInCache(cacheKey)
+            .doOnNext(cached -> {
+                if (cacheExpiry.isStale(cached)) {
+                    refreshPageInBackground(cacheKey, sort, search, loader);
+                }
             })
+            .flatMap(this::toPageDto)
             .switchIfEmpty(
-                itemRepository
-                    .findById(id)
-                    .map(itemServiceMapper::map)
-                    .flatMap(
-                        itemDto ->
-                            itemRedisOperations
-                                .opsForValue()
-                                .set(id.toString(), itemServiceMapper.mapDtoToCacheModel(itemDto))
-                                .onErrorResume(e -> {
-                                    log.warn("Ошибка при сохранении в кэш: {}", e.getMessage());
-                                    return Mono.just(true);
-                                })
-                                .thenReturn(itemDto)
-                    )
-                    .switchIfEmpty(Mono.error(new NotFoundException("Не найден продукт id=" + id)))
+                cacheLoadCoalescer.coalesce(
+                    cacheKey,
+                    () -> findPageInCache(cacheKey).flatMap(this::toPageDto),
+                    () -> loadPageAndCache(cacheKey, sort, search, loader)
+                )
             );
     }
 
-    @Override
-    public Mono<ItemPageDto> findAllActive(
-        Pageable pageable,
+    private void refreshPageInBackground(
+        String cacheKey,
         ItemSortingEnum sort,
-        String search
+        String search,
+        Supplier<Mono<ItemPageDto>> loader
     ) {
-        // Создаем ключ для кэша
-        String cacheKey = generateItemPageCacheKey(pageable, sort, search);
+        log.debug("Страница {} устарела, обновление в фоне", cacheKey);
 
-        return itemPageRedisOperations
-            .opsForValue()
-            .get(cacheKey)
+        // Ожидающие узлы проверяют только Redis: в локальном кэше до обновления лежит та же устаревшая страница
+        cacheLoadCoalescer
+            .refresh(
+                cacheKey,
+                () -> itemPageRedisOperations
+                    .opsForValue()
+                    .get(cacheKey)
+                    .filter(cached -> !cacheExpiry.isStale(cached))
+                    .flatMap(this::toPageDto),
+                () -> loadPageAndCache(cacheKey, sort, search, loader)
+            )
+            .subscribe(
+                pageDto -> log.debug("Страница {} обновлена в фоне", cacheKey),
+                e -> log.warn("Ошибка при фоновом обновлении страницы {}: {}", cacheKey, e.getMessage())
+            );
+    }
+
+    /**
+     * Нормализованная страница собирается из кэша товаров одним пакетным чтением
+     */
+    private Mono<ItemPageDto> toPageDto(ItemPageCacheModel cached) {
+        if (cached.itemIds() == null) {
+            return Mono.just(itemServiceMapper.mapFromPageCacheModel(cached));
+        }
+
+        return findByIds(cached.itemIds())
+            .collectList()
+            .map(items -> itemServiceMapper.mapFromPageCacheModel(cached, items));
+    }
+
+    private Mono<ItemPageCacheModel> findPageInCache(String cacheKey) {
+        return itemNearCache
+            .getPage(cacheKey)
+            .switchIfEmpty(
+                itemPageRedisOperations
+                    .opsForValue()
+                    .get(cacheKey)
+                    .doOnNext(cached -> itemNearCache.putPage(cacheKey, cached))
+            )
             .doOnSuccess(cached -> {
                 if (cached != null) {
                     log.debug("Получены данные из кэша для ключа: {}", cacheKey);
                 }
             })
-            .map(itemServiceMapper::mapFromPageCacheModel)
             .onErrorResume(e -> {
                 log.warn("Ошибка при получении страницы товаров из кэша: {}", e.getMessage());
                 return Mono.empty();
+            });
+    }
+
+    private Mono<ItemPageDto> loadPageAndCache(
+        String cacheKey,
+        ItemSortingEnum sort,
+        String search,
+        Supplier<Mono<ItemPageDto>> loader
+    ) {
+        return Mono.defer(loader)
+            .flatMap(pageDto -> {
+                log.debug("Сохранение результатов в кэш для ключа: {}", cacheKey);
+                boolean normalized = cacheProperties.getPage().getMode() == PageCacheModeEnum.IDS;
+                ItemPageCacheModel cacheModel = normalized ?
+                    itemServiceMapper.mapToNormalizedPageCacheModel(pageDto, sort, search) :
+                    itemServiceMapper.mapToPageCacheModel(pageDto, sort, search);
+                itemNearCache.putPage(cacheKey, cacheModel);
+
+                Mono<Boolean> pageWrite = itemPageRedisOperations
+                    .opsForValue()
+                    .set(cacheKey, cacheModel, cacheExpiry.itemsPageTtl());
+
+                if (normalized) {
+                    // Товары страницы кладутся в кэш товаров, откуда страница и будет собираться
+                    pageWrite = pageWrite.then(cacheItems(pageDto.getItemList()));
+                } else {
+                    // Полная страница хранит копии товаров, поэтому её ключ запоминается для каждого из них
+                    List<Long> itemIds = pageDto.getItemList().stream().map(ItemDto::getId).toList();
+                    pageWrite = pageWrite.flatMap(written -> itemPageIndex.register(cacheKey, itemIds).thenReturn(written));
+                }
+
+                return pageWrite
+                    .onErrorResume(e -> {
+                        log.warn("Ошибка при сохранении страницы в кэш: {}", e.getMessage());
+                        return Mono.just(true);
+                    })
+                    .thenReturn(pageDto);
+            });
+    }
+
+    private Mono<Boolean> cacheItems(List<ItemDto> items) {
+        // Команды отправляются без ожидания ответов и уходят в Redis одним пайплайном
+        return Flux.fromIterable(items)
+            .flatMap(itemDto -> {
+                ItemCacheModel cacheModel = itemServiceMapper.mapDtoToCacheModel(itemDto);
+                itemNearCache.putItem(itemDto.getId(), cacheModel);
+
+                return itemRedisOperations
+                    .opsForValue()
+                    .set(itemDto.getId().toString(), cacheModel, cacheExpiry.itemTtl());
             })
+            .then(Mono.just(true));
+    }
+
+    private Mono<ItemDto> findItemInCache(Long id) {
+        return itemNearCache
+            .getItem(id)
             .switchIfEmpty(
-                fetchItemsFromDatabase(pageable, sort, search)
-                    .flatMap(pageDto -> {
-                        log.debug("Сохранение результатов в кэш для ключа: {}", cacheKey);
-                        return itemPageRedisOperations
-                            .opsForValue()
-                            .set(
-                                cacheKey,
-                                itemServiceMapper.mapToPageCacheModel(pageDto, sort, search),
-                                Duration.ofSeconds(cacheProperties.getTtl().getItemsPage())
-                            )
-                            .onErrorResume(e -> {
-                                log.warn("Ошибка при сохранении страницы в кэш: {}", e.getMessage());
-                                return Mono.just(true);
-                            })
-                            .thenReturn(pageDto);
-                    })
-            );
+                itemRedisOperations
+                    .opsForValue()
+                    .get(id.toString())
+                    .doOnNext(cached -> itemNearCache.putItem(id, cached))
+            )
+            .map(itemServiceMapper::mapCacheModelToDto)
+            .doOnSuccess(cached -> {
+                if (cached != null) {
+                    log.debug("Получены данные из кэша для ключа: {}", id);
+                }
+            })
+            .onErrorResume(e -> {
+                log.warn("Ошибка при получении товара из кэша: {}", e.getMessage());
+                return Mono.empty();
+            });
     }
 
-    @Override
-    public Flux<ItemDto> findByIds(List<Long> itemIds) {
+    private Mono<ItemDto> loadItemAndCache(Long id) {
         return itemRepository
-            .findByIdIn(itemIds)
-            .map(itemServiceMapper::map);
+            .findById(id)
+            .map(itemServiceMapper::map)
+            .flatMap(
+                itemDto -> {
+                    ItemCacheModel cacheModel = itemServiceMapper.mapDtoToCacheModel(itemDto);
+                    itemNearCache.putItem(id, cacheModel);
+
+                    return itemRedisOperations
+                        .opsForValue()
+                        .set(id.toString(), cacheModel, cacheExpiry.itemTtl())
+                        .onErrorResume(e -> {
+                            log.warn("Ошибка при сохранении в кэш: {}", e.getMessage());
+                            return Mono.just(true);
+                        })
+                        .thenReturn(itemDto);
+                }
+            );
     }
 
-    public Mono<Void> updateItemInPageCache(ItemDto updatedItem) {
-        return itemPageRedisOperations
-            .scan()
-            .filter(key -> key.toString().startsWith("items:page:"))
-            .flatMap(key ->
-                         itemPageRedisOperations.opsForValue().get(key)
-                             .filter(pageCache ->
-                                         pageCache.items().stream()
-                                             .anyMatch(item -> item.id().equals(updatedItem.getId()))
-                             )
-                             .flatMap(existingCache -> {
-                                 List<ItemCacheModel> updatedItems = existingCache.items().stream()
-                                     .map(item -> {
-                                         if (item.id().equals(updatedItem.getId())) {
-                                             return new ItemCacheModel(
-                                                 updatedItem.getId().toString(),
-                                                 updatedItem.getName(),
-                                                 updatedItem.getPrice(),
-                                                 updatedItem.getDescription(),
-                                                 updatedItem.getImageFileName()
-                                             );
-                                         }
-                                         return item;
-                                     })
-                                     .collect(Collectors.toList());
-
-                                 ItemPageCacheModel updatedCache = new ItemPageCacheModel(
-                                     updatedItems,
-                                     existingCache.totalItems(),
-                                     existingCache.totalPages(),
-                                     existingCache.page(),
-                                     existingCache.pageSize(),
-                                     existingCache.sortField(),
-                                     existingCache.searchQuery(),
-                                     System.currentTimeMillis()
-                                 );
-
-                                 return itemPageRedisOperations.opsForValue()
-                                     .set(key, updatedCache, Duration.ofSeconds(cacheProperties.getTtl().getItemsPage()));
-                             })
-            )
-            .then();
+    /**
+     * Проставляет токены соседних страниц, если включена keyset-пагинация
+     */
+    private ItemPageDto withCursors(ItemPageDto pageDto, ItemSortingEnum sort) {
+        List<ItemDto> items = pageDto.getItemList();
+        if (catalogProperties.getPaging().getMode() != PagingModeEnum.KEYSET || items.isEmpty()) {
+            return pageDto;
+        }
+
+        int page = pageDto.getPage();
+        if (page < pageDto.getTotalPages() - 1) {
+            pageDto.setNextCursor(ItemPageCursor.after(sort, page + 1, items.get(items.size() - 1)).encode());
+        }
+        if (page > 0) {
+            pageDto.setPreviousCursor(ItemPageCursor.before(sort, page - 1, items.get(0)).encode());
+        }
+
+        return pageDto;
     }
 
+    private ItemPageCursor decodeCursor(String cursor, ItemSortingEnum sort) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
 
-    private String generateItemPageCacheKey(Pageable pageable, ItemSortingEnum sort, String search) {
-        return "items:page:" +
-               pageable.getPageNumber() + ":" +
-               pageable.getPageSize() + ":" +
-               (sort != null ? sort.name() : "NO") + ":" +
-               (StringUtils.hasText(search) ? search.replace(" ", "_") : "noSearch");
+        try {
+            ItemPageCursor pageCursor = ItemPageCursor.decode(cursor);
+            // Курсор от другой сортировки не имеет смысла, начинаем с первой страницы
+            return pageCursor.sort() == sort ? pageCursor : null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Не удалось разобрать курсор страницы '{}': {}", cursor, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Приводит поисковый запрос к виду, по которому выполняется поиск и строится ключ кэша
+     */
+    private String normalizeSearch(String search) {
+        if (!StringUtils.hasText(search)) {
+            return null;
+        }
+
+        return isTrigramSearch() ? search.trim() : search;
+    }
+
+    /**
+     * В режиме TRIGRAM запрос ищется по триграммному индексу с ранжированием по сходству.
+     * Слишком короткий запрос не даёт триграмм для индекса и ищется по вхождению подстроки без ранжирования.
+     */
+    private boolean isTrigramQuery(String search) {
+        return StringUtils.hasText(search) &&
+               isTrigramSearch() &&
+               search.length() >= catalogProperties.getSearch().getMinQueryLength();
+    }
+
+    private boolean isTrigramSearch() {
+        return catalogProperties.getSearch().getMode() == SearchModeEnum.TRIGRAM;
     }
 
     private Mono<ItemPageDto> fetchItemsFromDatabase(
@@ -181,19 +562,39 @@ public class DefaultItemService implements ItemService {
         log.debug("Получение страницы товаров из БД: page={}, size={}, sort={}, search={}",
                   pageable.getPageNumber(), pageable.getPageSize(), sort, search);
 
+        // id замыкает сортировку, чтобы порядок совпадал с keyset-выборкой и был стабильным
+        Sort entitySort = sort == ItemSortingEnum.NO ?
+            Sort.by("id").ascending() :
+            Sort.by(sort.getEntityField()).ascending().and(Sort.by("id").ascending());
+
         var pageRequest = PageRequest.of(
             pageable.getPageNumber(),
             pageable.getPageSize(),
-            Sort.by(sort.getEntityField()).ascending()
+            entitySort
         );
 
-        Flux<ItemEntity> itemEntities = StringUtils.hasText(search) ?
-            itemRepository.findAllByIsActiveTrueAndNameLikeIgnoreCase(pageRequest, search) :
-            itemRepository.findAllByIsActiveTrue(pageRequest);
+        if (isTrigramQuery(search)) {
+            // Общее число найденных товаров приходит вместе со страницей, отдельный COUNT не нужен
+            return itemRepository
+                .searchActivePageByName(search, sort, pageRequest)
+                .map(result -> buildPage(
+                    result.items().stream().map(itemServiceMapper::map).toList(),
+                    result.totalItems(),
+                    pageable.getPageNumber(),
+                    pageable.getPageSize()
+                ));
+        }
+
+        Flux<ItemEntity> itemEntities;
+        Mono<Long> itemCount;
 
-        Mono<Long> itemCount = StringUtils.hasText(search) ?
-            itemRepository.countByIsActiveTrueAndNameLikeIgnoreCase(search) :
-            itemRepository.countByIsActiveTrue();
+        if (!StringUtils.hasText(search)) {
+            itemEntities = itemRepository.findAllByIsActiveTrue(pageRequest);
+            itemCount = countActiveItems();
+        } else {
+            itemEntities = itemRepository.findAllByIsActiveTrueAndNameLikeIgnoreCase(pageRequest, search);
+            itemCount = itemRepository.countByIsActiveTrueAndNameLikeIgnoreCase(search);
+        }
 
         return Mono.zip(
                 itemEntities
@@ -201,22 +602,48 @@ public class DefaultItemService implements ItemService {
                     .collectList(),
                 itemCount
             )
-            .map(
-                tuple -> {
-                    long totalItems = tuple.getT2();
-                    long pageSize = pageable.getPageSize();
-                    long totalPages = (totalItems + pageSize - 1) / pageSize;
-                    long currentPage = pageable.getPageNumber();
-
-                    return ItemPageDto.builder()
-                        .itemList(tuple.getT1())
-                        .totalItems((int) totalItems)
-                        .totalPages((int) totalPages)
-                        .page((int) currentPage)
-                        .pageSize((int) pageSize)
-                        .build();
+            .map(tuple -> buildPage(tuple.getT1(), tuple.getT2(), pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    private Mono<ItemPageDto> fetchItemsPageByCursor(ItemPageCursor cursor, int pageSize) {
+        log.debug("Получение страницы товаров из БД по курсору: page={}, size={}, sort={}",
+                  cursor.page(), pageSize, cursor.sort());
+
+        Mono<List<ItemDto>> items = itemRepository
+            .seekActive(cursor.sort(), cursor.typedSortValue(), cursor.id(), cursor.forward(), pageSize)
+            .map(itemServiceMapper::map)
+            .collectList();
+
+        return Mono.zip(items, countActiveItems())
+            .flatMap(tuple -> {
+                if (!cursor.forward() && tuple.getT1().size() < pageSize) {
+                    // До курсора товаров меньше, чем на страницу: каталог изменился, показываем его начало
+                    return fetchItemsFromDatabase(PageRequest.of(0, pageSize), cursor.sort(), null);
                 }
-            );
+                return Mono.just(buildPage(tuple.getT1(), tuple.getT2(), cursor.page(), pageSize));
+            });
+    }
+
+    /**
+     * Число активных товаров берётся из кэша текущего поколения каталога и пересчитывается
+     * в БД только после записи в каталог
+     */
+    private Mono<Long> countActiveItems() {
+        return catalogGeneration
+            .current()
+            .flatMap(generation -> activeItemCount.get(generation, itemRepository::countByIsActiveTrue));
+    }
+
+    private ItemPageDto buildPage(List<ItemDto> items, long totalItems, int page, int pageSize) {
+        long totalPages = (totalItems + pageSize - 1) / pageSize;
+
+        return ItemPageDto.builder()
+            .itemList(items)
+            .totalItems((int) totalItems)
+            .totalPages((int) totalPages)
+            .page(page)
+            .pageSize(pageSize)
+            .build();
     }
 
 }
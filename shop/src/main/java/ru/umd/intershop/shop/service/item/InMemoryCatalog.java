@@ -0,0 +1,207 @@
+package ru.umd.intershop.shop.service.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.CatalogEngineEnum;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.data.cache.CatalogChangedEvent;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.cache.ItemContentChangedEvent;
+import ru.umd.intershop.shop.data.config.CatalogProperties;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.item.mapper.ItemServiceMapper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Каталог активных товаров в памяти узла. Снимок привязан к поколению каталога: запись
+ * через этот узел применяется к снимку сразу, а смена поколения другим узлом приводит
+ * к перезагрузке снимка в фоне. Пока снимок не соответствует текущему поколению,
+ * запросы обслуживаются через БД.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InMemoryCatalog {
+    private final ItemRepository itemRepository;
+
+    private final ItemServiceMapper itemServiceMapper;
+
+    private final CatalogProperties catalogProperties;
+
+    private final CatalogGeneration catalogGeneration;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    public boolean isEnabled() {
+        return catalogProperties.getEngine().getMode() == CatalogEngineEnum.MEMORY;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (isEnabled()) {
+            reloadInBackground();
+        }
+    }
+
+    /**
+     * Страница из снимка или пустой результат, если снимок отключён или устарел
+     */
+    Mono<CatalogSnapshot.Slice> findPage(int page, int pageSize, ItemSortingEnum sort, String search, boolean ranked) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+
+        return catalogGeneration
+            .current()
+            .flatMap(generation -> {
+                CatalogSnapshot current = snapshot.get();
+                if (current == null || current.generation() != generation) {
+                    reloadInBackground();
+                    return Mono.empty();
+                }
+
+                return Mono.just(current.page(page, pageSize, sort, search, ranked));
+            });
+    }
+
+    /**
+     * Применяет запись товара, сделанную этим узлом, если снимок отстаёт ровно на одно поколение.
+     * Иначе снимок пропустил чужие записи и будет перезагружен при следующем запросе.
+     * Место товара в сортировке по названию запрашивается у БД.
+     */
+    public Mono<Void> apply(ItemEntity item, long generation) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+
+        boolean active = Boolean.TRUE.equals(item.getIsActive());
+
+        return nameRank(item, active)
+            .doOnNext(rank -> {
+                CatalogSnapshot updated = snapshot.updateAndGet(current ->
+                    current != null && current.generation() == generation - 1 ?
+                        current.withItem(itemServiceMapper.map(item), active, rank, generation) :
+                        current
+                );
+
+                if (updated != null && updated.generation() == generation) {
+                    log.debug("Товар {} применён к каталогу в памяти, поколение {}", item.getId(), generation);
+                }
+            })
+            .then();
+    }
+
+    /**
+     * Товар изменён без влияния на состав и порядок каталога: снимок обновляется в том же поколении
+     */
+    public Mono<Void> refresh(ItemEntity item) {
+        if (!isEnabled() || !Boolean.TRUE.equals(item.getIsActive())) {
+            return Mono.empty();
+        }
+
+        return nameRank(item, true)
+            .doOnNext(rank -> snapshot.updateAndGet(current ->
+                current != null ?
+                    current.withItem(itemServiceMapper.map(item), true, rank, current.generation()) :
+                    null
+            ))
+            .then();
+    }
+
+    /**
+     * Лента изменений получила изменения товаров без смены поколения, их получает каждый узел
+     */
+    @EventListener
+    public void onItemContentChanged(ItemContentChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        itemRepository
+            .findByIdIn(event.itemIds())
+            .concatMap(this::refresh)
+            .subscribe(
+                null,
+                e -> log.warn("Ошибка при обновлении товаров {} в каталоге в памяти: {}", event.itemIds(), e.getMessage())
+            );
+    }
+
+    /**
+     * Поколение переключено лентой изменений. Единственный изменённый товар применяется к снимку,
+     * удалённый - снимается с продажи; после массовых или пропущенных изменений снимок перезагружается.
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (event.itemIds().size() != 1) {
+            reloadInBackground();
+            return;
+        }
+
+        Long itemId = event.itemIds().iterator().next();
+        itemRepository
+            .findById(itemId)
+            .defaultIfEmpty(ItemEntity.builder().id(itemId).name("").isActive(false).build())
+            .flatMap(item -> apply(item, event.generation()))
+            .subscribe(
+                null,
+                e -> log.warn("Ошибка при применении товара {} к каталогу в памяти: {}", itemId, e.getMessage())
+            );
+    }
+
+    /**
+     * Полная загрузка снимка. Поколение читается до выборки: если каталог изменится во время
+     * загрузки, снимок окажется устаревшим и будет перезагружен. Товары выбираются в порядке
+     * сортировки по названию, которую снимок берёт у БД.
+     */
+    public Mono<Void> reload() {
+        return catalogGeneration
+            .current()
+            .flatMap(generation -> itemRepository
+                .findAllByIsActiveTrueOrderByNameAscIdAsc()
+                .map(itemServiceMapper::map)
+                .collectList()
+                .map(items -> CatalogSnapshot.build(items, generation)))
+            .doOnNext(loaded -> {
+                // Более новый снимок, успевший получить запись этого узла, не затирается
+                snapshot.accumulateAndGet(loaded, (current, next) ->
+                    current != null && current.generation() > next.generation() ? current : next
+                );
+                log.info("Каталог в памяти загружен: поколение {}", loaded.generation());
+            })
+            .then();
+    }
+
+    /**
+     * Место товара в сортировке по названию; NULL в названии БД ставит в конец сортировки
+     */
+    private Mono<Long> nameRank(ItemEntity item, boolean active) {
+        return active && item.getName() != null ?
+            itemRepository.countActiveBeforeByName(item.getName(), item.getId()) :
+            Mono.just(Long.MAX_VALUE);
+    }
+
+    private void reloadInBackground() {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+
+        reload()
+            .doFinally(signal -> reloading.set(false))
+            .subscribe(
+                null,
+                e -> log.warn("Ошибка при загрузке каталога в память: {}", e.getMessage())
+            );
+    }
+}
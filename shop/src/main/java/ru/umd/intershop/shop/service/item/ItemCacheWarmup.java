@@ -0,0 +1,143 @@
+package ru.umd.intershop.shop.service.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.data.cache.CatalogChangedEvent;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+import ru.umd.intershop.shop.service.dto.ItemPageDto;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Прогревает кэш первых страниц каталога для каждой сортировки и размера страницы.
+ * Страницы одной сортировки обходятся последовательно, как их листал бы пользователь,
+ * поэтому при keyset-пагинации прогреваются ключи по курсорам, а не по номерам страниц.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemCacheWarmup implements ApplicationRunner {
+    private final ItemService itemService;
+
+    private final CacheProperties cacheProperties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicBoolean warmUpRequested = new AtomicBoolean();
+
+    /**
+     * Прогрев при старте. Runner выполняется до публикации готовности приложения,
+     * поэтому ожидание здесь задерживает приём трафика до окончания прогрева.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        CacheProperties.Warmup properties = cacheProperties.getWarmup();
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        if (properties.isWaitForReadiness()) {
+            try {
+                warmUp().block(Duration.ofSeconds(properties.getTimeout()));
+            } catch (RuntimeException e) {
+                log.warn("Прогрев кэша при старте не завершился: {}", e.getMessage());
+            }
+        } else {
+            warmUpInBackground();
+        }
+    }
+
+    /**
+     * Запускает прогрев в фоне. Если прогрев уже идёт, он будет повторён после завершения,
+     * чтобы серия инвалидаций не запускала параллельные прогревы.
+     */
+    public void warmUpInBackground() {
+        if (!cacheProperties.getWarmup().isEnabled()) {
+            return;
+        }
+
+        warmUpRequested.set(true);
+        runIfRequested();
+    }
+
+    /**
+     * Поколение переключено лентой изменений из-за записи мимо приложения
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        warmUpInBackground();
+    }
+
+    /**
+     * Запрос выставляется до попытки занять прогрев, а завершившийся прогрев проверяет его
+     * уже после освобождения. Поэтому запрос, пришедший в момент завершения, не теряется:
+     * его подхватит либо сам запросивший поток, либо завершившийся прогрев.
+     */
+    private void runIfRequested() {
+        if (!warmUpRequested.get() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        // Запросы, пришедшие до этой точки, покрывает начинающийся прогрев
+        warmUpRequested.set(false);
+
+        warmUp()
+            .doFinally(signal -> {
+                running.set(false);
+                runIfRequested();
+            })
+            .subscribe(
+                null,
+                e -> log.warn("Ошибка при прогреве кэша страниц: {}", e.getMessage())
+            );
+    }
+
+    public Mono<Void> warmUp() {
+        CacheProperties.Warmup properties = cacheProperties.getWarmup();
+        long start = System.currentTimeMillis();
+
+        return Flux.fromArray(ItemSortingEnum.values())
+            .flatMap(sort -> Flux.fromIterable(properties.getPageSizes()).map(size -> new Chain(sort, size)))
+            .flatMap(chain -> warmUpChain(chain, properties.getPages()), Math.max(1, properties.getConcurrency()))
+            .count()
+            .doOnNext(pages -> log.info(
+                "Прогрев кэша завершён: страниц {}, за {} мс",
+                pages,
+                System.currentTimeMillis() - start
+            ))
+            .then();
+    }
+
+    private Flux<ItemPageDto> warmUpChain(Chain chain, int pages) {
+        return itemService
+            .findAllActive(PageRequest.of(0, chain.size()), chain.sort(), null)
+            .expand(page -> nextPage(chain, page))
+            .take(pages)
+            .onErrorResume(e -> {
+                log.warn("Ошибка при прогреве страниц {} по {}: {}", chain.sort(), chain.size(), e.getMessage());
+                return Flux.empty();
+            });
+    }
+
+    private Mono<ItemPageDto> nextPage(Chain chain, ItemPageDto page) {
+        if (page.getNextCursor() != null) {
+            return itemService.findAllActiveByCursor(page.getNextCursor(), chain.size(), chain.sort());
+        }
+        if (page.getPage() + 1 < page.getTotalPages()) {
+            return itemService.findAllActive(PageRequest.of(page.getPage() + 1, chain.size()), chain.sort(), null);
+        }
+
+        return Mono.empty();
+    }
+
+    private record Chain(ItemSortingEnum sort, int size) {
+    }
+}
@@ -0,0 +1,82 @@
+package ru.umd.intershop.shop.service.item;
+
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.service.dto.ItemDto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция в каталоге для keyset-пагинации: страница начинается строго после (или до) товара
+ * с ключом сортировки {@code sortValue} и идентификатором {@code id}.
+ * Наружу передаётся только в виде непрозрачного токена.
+ */
+public record ItemPageCursor(
+    ItemSortingEnum sort,
+    boolean forward,
+    int page,
+    long id,
+    String sortValue
+) {
+    private static final String SEPARATOR = ":";
+
+    public static ItemPageCursor after(ItemSortingEnum sort, int page, ItemDto lastItem) {
+        return new ItemPageCursor(sort, true, page, lastItem.getId(), sortValueOf(sort, lastItem));
+    }
+
+    public static ItemPageCursor before(ItemSortingEnum sort, int page, ItemDto firstItem) {
+        return new ItemPageCursor(sort, false, page, firstItem.getId(), sortValueOf(sort, firstItem));
+    }
+
+    /**
+     * @throws IllegalArgumentException если токен повреждён
+     */
+    public static ItemPageCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(SEPARATOR, 5);
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Некорректный курсор страницы: " + token);
+        }
+
+        return new ItemPageCursor(
+            ItemSortingEnum.valueOf(parts[0]),
+            "A".equals(parts[1]),
+            Integer.parseInt(parts[2]),
+            Long.parseLong(parts[3]),
+            parts[4]
+        );
+    }
+
+    public String encode() {
+        String raw = String.join(
+            SEPARATOR,
+            sort.name(),
+            forward ? "A" : "B",
+            String.valueOf(page),
+            String.valueOf(id),
+            sortValue
+        );
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Значение ключа сортировки в типе колонки, по которой выполняется seek
+     */
+    public Object typedSortValue() {
+        return switch (sort) {
+            case NO -> id;
+            case ALPHA -> sortValue;
+            case PRICE -> new BigDecimal(sortValue);
+        };
+    }
+
+    private static String sortValueOf(ItemSortingEnum sort, ItemDto item) {
+        return switch (sort) {
+            case NO -> String.valueOf(item.getId());
+            case ALPHA -> item.getName();
+            case PRICE -> item.getPrice().toPlainString();
+        };
+    }
+}
@@ -14,5 +14,7 @@ public interface ItemService {
 
     Mono<ItemPageDto> findAllActive(Pageable pageable, ItemSortingEnum sort, String search);
 
+    Mono<ItemPageDto> findAllActiveByCursor(String cursor, int pageSize, ItemSortingEnum sort);
+
     Flux<ItemDto> findByIds(List<Long> itemIds);
 }
@@ -60,11 +60,34 @@ public class ItemServiceMapper {
         );
     }
 
+    /**
+     * Нормализованная страница хранит только id товаров, сами товары достаются из кэша товаров
+     */
+    public ItemPageCacheModel mapToNormalizedPageCacheModel(ItemPageDto pageDto, ItemSortingEnum sort, String search) {
+        List<Long> itemIds = pageDto.getItemList().stream()
+            .map(ItemDto::getId)
+            .collect(Collectors.toList());
+
+        return ItemPageCacheModel.createNormalized(
+            itemIds,
+            pageDto.getTotalItems(),
+            pageDto.getTotalPages(),
+            pageDto.getPage(),
+            pageDto.getPageSize(),
+            sort != null ? sort.name() : "NO",
+            search
+        );
+    }
+
     public ItemPageDto mapFromPageCacheModel(ItemPageCacheModel cacheModel) {
         List<ItemDto> dtoItems = cacheModel.items().stream()
             .map(this::mapCacheModelToDto)
             .collect(Collectors.toList());
 
+        return mapFromPageCacheModel(cacheModel, dtoItems);
+    }
+
+    public ItemPageDto mapFromPageCacheModel(ItemPageCacheModel cacheModel, List<ItemDto> dtoItems) {
         return ItemPageDto.builder()
             .itemList(dtoItems)
             .totalItems(cacheModel.totalItems())
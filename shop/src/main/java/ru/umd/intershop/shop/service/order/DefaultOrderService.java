@@ -1,25 +1,36 @@
 package ru.umd.intershop.shop.service.order;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.shop.common.constant.CartItemAction;
+import ru.umd.intershop.shop.common.constant.CartStorageEnum;
 import ru.umd.intershop.shop.common.constant.OrderStatusEnum;
+import ru.umd.intershop.shop.data.cache.CartStore;
+import ru.umd.intershop.shop.data.config.CartProperties;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
 import ru.umd.intershop.shop.data.entity.OrderEntity;
 import ru.umd.intershop.shop.data.entity.OrderItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
 import ru.umd.intershop.shop.data.repository.OrderItemRepository;
 import ru.umd.intershop.shop.data.repository.OrderRepository;
+import ru.umd.intershop.shop.service.dto.CheckoutDto;
 import ru.umd.intershop.shop.service.dto.ItemDto;
 import ru.umd.intershop.shop.service.dto.OrderDto;
+import ru.umd.intershop.shop.service.dto.OrderPageDto;
+import ru.umd.intershop.shop.service.exception.CartItemUnavailableException;
+import ru.umd.intershop.shop.service.exception.CheckoutTotalChangedException;
 import ru.umd.intershop.shop.service.exception.NotFoundException;
 import ru.umd.intershop.shop.service.item.ItemService;
 import ru.umd.intershop.shop.service.order.mapper.OrderServiceMapper;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -30,8 +41,16 @@ public class DefaultOrderService implements OrderService {
 
     private final OrderItemRepository orderItemRepository;
 
+    private final ItemRepository itemRepository;
+
     private final OrderServiceMapper orderServiceMapper;
 
+    private final CartStore cartStore;
+
+    private final CartProperties cartProperties;
+
+    private final TransactionalOperator transactionalOperator;
+
     @Override
     public Mono<OrderDto> findById(Long id) {
         return orderRepository.findById(id)
@@ -39,78 +58,208 @@ public class DefaultOrderService implements OrderService {
             .flatMap(this::assembleOrder);
     }
 
+    /**
+     * Страница истории собирается тремя запросами независимо от числа заказов на ней: заказы
+     * страницы, все их позиции и все товары этих позиций. Позиции и товары раскладываются по
+     * заказам через хэш-таблицы.
+     */
     @Override
-    public Flux<OrderDto> findAllCompleted() {
-        return orderRepository.findAllByStatus(OrderStatusEnum.COMPLETED.name())
-            .flatMap(this::assembleOrder);
+    public Mono<OrderPageDto> findCompleted(int page, int pageSize) {
+        // Лишняя строка показывает, есть ли следующая страница, без подсчёта всей истории
+        return orderRepository
+            .findPageByStatus(OrderStatusEnum.COMPLETED.name(), (long) page * pageSize, pageSize + 1)
+            .collectList()
+            .flatMap(orders -> {
+                boolean hasNext = orders.size() > pageSize;
+                List<OrderEntity> pageOrders = hasNext ? orders.subList(0, pageSize) : orders;
+
+                return assembleOrders(pageOrders).map(orderDtos -> OrderPageDto.builder()
+                    .orderList(orderDtos)
+                    .page(page)
+                    .pageSize(pageSize)
+                    .hasNext(hasNext)
+                    .build());
+            });
     }
 
     @Override
-    public Mono<OrderDto> getCart() {
-        return getCartEntity()
-            .flatMap(this::assembleOrder);
+    public Mono<OrderDto> getCart(String sessionId) {
+        if (isRedisCart()) {
+            return cartStore.entries(sessionId).flatMap(this::assembleCart);
+        }
+
+        // Просмотр не создаёт корзину: строка заказа появляется с первым добавленным товаром
+        return findCartEntity(sessionId)
+            .flatMap(this::assembleOrder)
+            .switchIfEmpty(Mono.fromSupplier(() -> orderServiceMapper.mapCart(Map.of(), List.of())));
+    }
+
+    /**
+     * Позиция корзины меняется одним запросом (upsert или DELETE) либо одним скриптом в Redis,
+     * поэтому транзакция не нужна. В режиме REDIS она к тому же открыла бы соединение с БД.
+     */
+    @Override
+    public Mono<Void> updateItemCount(String sessionId, Long id, CartItemAction action) {
+        if (action == CartItemAction.DELETE) {
+            return isRedisCart() ?
+                cartStore.remove(sessionId, id) :
+                findCartEntity(sessionId)
+                    .flatMap(cart -> orderItemRepository.deleteByOrderIdAndItemId(cart.getId(), id))
+                    .then();
+        }
+
+        int delta = action == CartItemAction.PLUS ? 1 : -1;
+        Mono<?> update = isRedisCart() ?
+            cartStore.increment(sessionId, id, delta) :
+            getOrCreateCartEntity(sessionId)
+                .flatMap(cart -> orderItemRepository.addCount(cart.getId(), id, delta, LocalDateTime.now()));
+
+        return itemService.findById(id)
+            .switchIfEmpty(Mono.error(new RuntimeException("Item not found")))
+            .then(update)
+            .then();
     }
 
+    /**
+     * Корзина из Redis записывается в БД в одной транзакции из постоянного числа запросов,
+     * после чего сумма считается по ценам товаров в БД. Эту сумму покупатель оплачивает,
+     * и она же записывается в заказ при оформлении.
+     */
     @Override
-    @Transactional
-    public Mono<Void> updateItemCount(Long id, CartItemAction action) {
-        return getCartEntity().flatMap(
-            cart ->
-                orderItemRepository.findAllByOrderIdOrderByIdDesc(cart.getId())
-                    .filter(orderItemEntity -> orderItemEntity.getItemId().equals(id))
-                    .next()
-                    .switchIfEmpty(
-                        itemService.findById(id)
-                            .switchIfEmpty(Mono.error(new RuntimeException("Item not found")))
-                            .flatMap(
-                                itemDto ->
-                                    orderItemRepository.save(
-                                        OrderItemEntity.builder()
-                                            .count(0)
-                                            .itemId(itemDto.getId())
-                                            .orderId(cart.getId())
-                                            .build()
-                                    )
-                            )
-                    )
-                    .flatMap(orderItem -> {
-                        // Обновляем orderItem в зависимости от действия
-                        switch (action) {
-                            case PLUS -> orderItem.setCount(orderItem.getCount() + 1);
-                            case MINUS -> {
-                                orderItem.setCount(orderItem.getCount() - 1);
-                                if (orderItem.getCount() < 0) {
-                                    orderItem.setCount(0);
-                                }
-                            }
-                            case DELETE -> {
-                                return orderItemRepository.delete(orderItem);
-                            }
-                        }
-                        return orderItemRepository.save(orderItem).then();
-                    })
-        );
+    public Mono<CheckoutDto> prepareCheckout(String sessionId) {
+        if (!isRedisCart()) {
+            return getOrCreateCartEntity(sessionId)
+                .flatMap(cart -> orderItemRepository.findAllByOrderIdOrderByIdDesc(cart.getId())
+                    .filter(line -> line.getCount() > 0)
+                    .map(OrderItemEntity::getItemId)
+                    .collectList()
+                    .flatMap(this::checkItemsAvailable)
+                    .then(priceCheckout(cart, null)));
+        }
+
+        return cartStore.entries(sessionId)
+            .flatMap(counts -> checkItemsAvailable(counts.entrySet().stream()
+                    .filter(entry -> entry.getValue() > 0)
+                    .map(Map.Entry::getKey)
+                    .toList())
+                .then(transactionalOperator.transactional(
+                    getOrCreateCartEntity(sessionId)
+                        .flatMap(cart -> materializeCart(cart, counts).then(priceCheckout(cart, counts)))
+                )));
     }
 
+    /**
+     * Заказ оформляется с суммой, посчитанной при подготовке и уже оплаченной, одним запросом.
+     * Если позиции или цены успели измениться, заказ остаётся в корзине.
+     * Из Redis после этого убираются только оформленные позиции: товары, добавленные во время
+     * оформления, остаются в корзине.
+     */
     @Override
-    @Transactional
-    public Mono<Long> processCart() {
-        return getCartEntity().flatMap(
-            cart ->
-                orderItemRepository.findAllByOrderIdOrderByIdDesc(cart.getId())
-                    .flatMap(orderItem ->
-                                 itemService.findById(orderItem.getItemId())
-                                     .map(itemDto -> itemDto.getPrice()
-                                         .multiply(BigDecimal.valueOf(orderItem.getCount())))
-                    )
-                    .reduce(BigDecimal.ZERO, BigDecimal::add)
-                    .flatMap(totalPrice -> {
-                        cart.setTotalPrice(totalPrice);
-                        cart.setStatus(OrderStatusEnum.COMPLETED.name());
-                        return orderRepository.save(cart);
-                    })
-                    .map(OrderEntity::getId)
-        );
+    public Mono<Long> processCart(String sessionId, CheckoutDto checkout) {
+        Long orderId = checkout.getOrderId();
+        Mono<Long> completed = orderRepository
+            .complete(orderId, checkout.getTotalPrice(), LocalDateTime.now())
+            .switchIfEmpty(Mono.defer(() -> orderRepository.findById(orderId)
+                .flatMap(order -> Mono.<Long>error(OrderStatusEnum.NEW.name().equals(order.getStatus()) ?
+                    new CheckoutTotalChangedException(orderId) :
+                    new IllegalStateException("Заказ id=" + orderId + " уже оформлен")))));
+
+        if (checkout.getCartCounts() == null) {
+            return completed;
+        }
+
+        return completed.flatMap(completedId -> cartStore.removeCheckedOut(sessionId, checkout.getCartCounts()).thenReturn(completedId));
+    }
+
+    private Mono<CheckoutDto> priceCheckout(OrderEntity cart, Map<Long, Integer> cartCounts) {
+        return orderRepository.calculateTotal(cart.getId())
+            .map(total -> CheckoutDto.builder()
+                .orderId(cart.getId())
+                .totalPrice(total)
+                .cartCounts(cartCounts)
+                .build());
+    }
+
+    /**
+     * Недоступные товары отсеиваются до оплаты, а не после списания денег
+     */
+    private Mono<Void> checkItemsAvailable(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return itemRepository.findByIdInAndIsActiveTrue(itemIds)
+            .map(ItemEntity::getId)
+            .collect(Collectors.toSet())
+            .flatMap(activeIds -> {
+                List<Long> unavailable = itemIds.stream().filter(id -> !activeIds.contains(id)).toList();
+                return unavailable.isEmpty() ?
+                    Mono.<Void>empty() :
+                    Mono.error(new CartItemUnavailableException(unavailable));
+            });
+    }
+
+    /**
+     * Позиции корзины из Redis заменяют всё, что могло остаться в заказе от режима DATABASE
+     */
+    private Mono<Void> materializeCart(OrderEntity cart, Map<Long, Integer> counts) {
+        List<Map.Entry<Long, Integer>> lines = counts.entrySet().stream()
+            .filter(entry -> entry.getValue() > 0)
+            .toList();
+
+        Mono<Integer> insert = lines.isEmpty() ?
+            Mono.empty() :
+            orderItemRepository.insertAll(
+                cart.getId(),
+                lines.stream().map(Map.Entry::getKey).toArray(Long[]::new),
+                lines.stream().map(Map.Entry::getValue).toArray(Integer[]::new),
+                LocalDateTime.now()
+            );
+
+        return orderItemRepository.deleteAllByOrderId(cart.getId())
+            .then(insert)
+            .then();
+    }
+
+    private Mono<OrderDto> assembleCart(Map<Long, Integer> counts) {
+        // Порядок полей хэша не определён, позиции упорядочиваются по id товара
+        List<Long> itemIds = counts.keySet().stream().sorted(Comparator.reverseOrder()).toList();
+
+        return itemService.findByIds(itemIds)
+            .collectList()
+            .map(items -> orderServiceMapper.mapCart(counts, items));
+    }
+
+    private boolean isRedisCart() {
+        return cartProperties.getStorage().getMode() == CartStorageEnum.REDIS;
+    }
+
+    private Mono<List<OrderDto>> assembleOrders(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        List<Long> orderIds = orders.stream().map(OrderEntity::getId).toList();
+
+        return orderItemRepository.findAllByOrderIdInOrderByIdDesc(orderIds)
+            .collect(Collectors.groupingBy(OrderItemEntity::getOrderId))
+            .flatMap(itemsByOrder -> {
+                List<Long> itemIds = itemsByOrder.values().stream()
+                    .flatMap(List::stream)
+                    .map(OrderItemEntity::getItemId)
+                    .toList();
+
+                return itemService.findByIds(itemIds)
+                    .collectList()
+                    .map(OrderServiceMapper::byId)
+                    .map(itemsById -> orders.stream()
+                        .map(order -> orderServiceMapper.map(
+                            order,
+                            itemsByOrder.getOrDefault(order.getId(), List.of()),
+                            itemsById
+                        ))
+                        .toList());
+            });
     }
 
     private Mono<OrderDto> assembleOrder(OrderEntity orderEntity) {
@@ -134,14 +283,20 @@ public class DefaultOrderService implements OrderService {
             });
     }
 
-    private Mono<OrderEntity> getCartEntity() {
-        return orderRepository.findLastByStatus(OrderStatusEnum.NEW.name())
-            .switchIfEmpty(
-                Mono.defer(() -> orderRepository.save(new OrderEntity(OrderStatusEnum.NEW.name(), BigDecimal.ZERO)))
-                    .onErrorResume(
-                        DataIntegrityViolationException.class, e ->
-                            orderRepository.findLastByStatus(OrderStatusEnum.NEW.name())
-                    )
-            );
+    /**
+     * Корзина ищется по уникальному индексу (session_id, status)
+     */
+    private Mono<OrderEntity> findCartEntity(String sessionId) {
+        return orderRepository.findBySessionIdAndStatus(sessionId, OrderStatusEnum.NEW.name());
+    }
+
+    /**
+     * Отсутствующая корзина создаётся вставкой с ON CONFLICT DO NOTHING: если параллельный запрос
+     * той же сессии успел её создать, вставка ничего не вернёт и корзина читается повторно.
+     */
+    private Mono<OrderEntity> getOrCreateCartEntity(String sessionId) {
+        return findCartEntity(sessionId)
+            .switchIfEmpty(Mono.defer(() -> orderRepository.insertCartIfAbsent(sessionId, LocalDateTime.now())))
+            .switchIfEmpty(Mono.defer(() -> findCartEntity(sessionId)));
     }
 }
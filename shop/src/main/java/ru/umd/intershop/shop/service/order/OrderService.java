@@ -1,18 +1,37 @@
 package ru.umd.intershop.shop.service.order;
 
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.shop.common.constant.CartItemAction;
+import ru.umd.intershop.shop.service.dto.CheckoutDto;
 import ru.umd.intershop.shop.service.dto.OrderDto;
+import ru.umd.intershop.shop.service.dto.OrderPageDto;
 
 public interface OrderService {
     Mono<OrderDto> findById(Long id);
 
-    Flux<OrderDto> findAllCompleted();
+    /**
+     * Страница оформленных заказов, от новых к старым
+     */
+    Mono<OrderPageDto> findCompleted(int page, int pageSize);
 
-    Mono<OrderDto> getCart();
+    /**
+     * Корзина посетителя. Пока товары не добавлялись, возвращается пустая корзина без id,
+     * строка заказа при этом не создаётся.
+     */
+    Mono<OrderDto> getCart(String sessionId);
 
-    Mono<Void> updateItemCount(Long id, CartItemAction action);
+    Mono<Void> updateItemCount(String sessionId, Long id, CartItemAction action);
 
-    Mono<Long> processCart();
+    /**
+     * Подготовка к оплате: проверяет, что все товары корзины существуют и активны, иначе ошибка
+     * {@link ru.umd.intershop.shop.service.exception.CartItemUnavailableException}, и считает
+     * сумму к оплате по ценам в БД.
+     */
+    Mono<CheckoutDto> prepareCheckout(String sessionId);
+
+    /**
+     * Оформляет оплаченный заказ с суммой из {@code checkout}. Повторное оформление того же
+     * заказа завершается {@link IllegalStateException}.
+     */
+    Mono<Long> processCart(String sessionId, CheckoutDto checkout);
 }
@@ -7,7 +7,10 @@ import ru.umd.intershop.shop.data.entity.OrderEntity;
 import ru.umd.intershop.shop.data.entity.OrderItemEntity;
 import ru.umd.intershop.shop.service.dto.*;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -16,6 +19,17 @@ public class OrderServiceMapper {
         OrderEntity orderEntity,
         List<OrderItemEntity> orderItemEntities,
         List<ItemDto> itemDtos
+    ) {
+        return map(orderEntity, orderItemEntities, byId(itemDtos));
+    }
+
+    /**
+     * @param itemsById товары всех позиций заказа; для страницы истории - общие для всех её заказов
+     */
+    public OrderDto map(
+        OrderEntity orderEntity,
+        List<OrderItemEntity> orderItemEntities,
+        Map<Long, ItemDto> itemsById
     ) {
         return OrderDto
             .builder()
@@ -28,13 +42,7 @@ public class OrderServiceMapper {
                     .map(
                         orderItemEntity -> OrderItemDto
                             .builder()
-                            .item(
-                                itemDtos
-                                    .stream()
-                                    .filter(itemEntity -> orderItemEntity.getItemId().equals(itemEntity.getId()))
-                                    .findAny()
-                                    .orElseThrow()
-                            )
+                            .item(Objects.requireNonNull(itemsById.get(orderItemEntity.getItemId())))
                             .count(orderItemEntity.getCount())
                             .build()
                     )
@@ -42,4 +50,25 @@ public class OrderServiceMapper {
             )
             .build();
     }
+
+    /**
+     * Корзина из Redis или ещё не созданная корзина сессии не записана в БД, поэтому у неё нет id
+     */
+    public OrderDto mapCart(Map<Long, Integer> counts, List<ItemDto> itemDtos) {
+        return OrderDto
+            .builder()
+            .status(OrderStatusEnum.NEW)
+            .totalPrice(BigDecimal.ZERO)
+            .items(
+                itemDtos
+                    .stream()
+                    .map(itemDto -> OrderItemDto.builder().item(itemDto).count(counts.get(itemDto.getId())).build())
+                    .toList()
+            )
+            .build();
+    }
+
+    public static Map<Long, ItemDto> byId(List<ItemDto> itemDtos) {
+        return itemDtos.stream().collect(Collectors.toMap(ItemDto::getId, Function.identity(), (a, b) -> a));
+    }
 }
@@ -2,13 +2,20 @@ package ru.umd.intershop.shop.web.admin.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.result.view.Rendering;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
 import ru.umd.intershop.shop.service.admin.dto.ItemForm;
+import ru.umd.intershop.shop.service.admin.dto.ItemImportResultDto;
 import ru.umd.intershop.shop.service.admin.item.ItemAdminService;
+import ru.umd.intershop.shop.service.exception.ImageTooLargeException;
 
 @Slf4j
 @Controller
@@ -28,8 +35,28 @@ public class ItemAdminController {
         return itemAdminService.createItem(itemForm)
             .then(Mono.just(Rendering.redirectTo("/items/add").build()))
             .onErrorResume(e -> {
+                if (e instanceof ImageTooLargeException) {
+                    return Mono.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage(), e));
+                }
                 log.error("Ошибка при создании товара: {}", e.getMessage(), e);
-                return null;
+                return Mono.error(e);
             });
     }
+
+    /**
+     * Массовый импорт товаров из CSV или NDJSON в формате выгрузки каталога. В ответе отчёт
+     * с числом загруженных товаров и ошибками по строкам файла.
+     */
+    @PostMapping(path = "/items/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseBody
+    public Mono<ItemImportResultDto> importItems(
+        @RequestPart("file") FilePart file,
+        @RequestParam(name = "format", defaultValue = "CSV") ExportFormatEnum format
+    ) {
+        return itemAdminService.importItems(file.content(), format)
+            .onErrorMap(
+                IllegalArgumentException.class,
+                e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e)
+            );
+    }
 }
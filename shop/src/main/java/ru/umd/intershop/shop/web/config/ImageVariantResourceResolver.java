@@ -0,0 +1,67 @@
+package ru.umd.intershop.shop.web.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.resource.PathResourceResolver;
+import org.springframework.web.reactive.resource.ResourceResolverChain;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.ImageVariantEnum;
+
+import java.util.List;
+
+/**
+ * Отдаёт оригинал изображения, если варианта нет: изображение загружено до появления вариантов
+ * или не удалось его обработать. Такой ответ не кэшируется надолго, иначе браузер не увидит
+ * вариант, когда тот появится по этому же адресу. Скрытые файлы и каталоги, в том числе
+ * недописанные загрузки, не отдаются.
+ */
+public class ImageVariantResourceResolver extends PathResourceResolver {
+    @Override
+    protected Mono<Resource> resolveResourceInternal(
+        @Nullable ServerWebExchange exchange,
+        String requestPath,
+        List<? extends Resource> locations,
+        ResourceResolverChain chain
+    ) {
+        if (isHidden(requestPath)) {
+            return Mono.empty();
+        }
+
+        return super.resolveResourceInternal(exchange, requestPath, locations, chain)
+            .switchIfEmpty(Mono.defer(() -> {
+                for (ImageVariantEnum variant : ImageVariantEnum.values()) {
+                    String prefix = variant.getDirectory() + "/";
+                    if (requestPath.startsWith(prefix)) {
+                        return super.resolveResourceInternal(exchange, requestPath.substring(prefix.length()), locations, chain)
+                            .doOnNext(original -> revalidate(exchange));
+                    }
+                }
+                return Mono.empty();
+            }));
+    }
+
+    private static boolean isHidden(String requestPath) {
+        for (String segment : requestPath.split("/")) {
+            if (segment.startsWith(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Заголовки кэширования выставляются обработчиком ресурсов, поэтому заменяются перед отправкой ответа
+     */
+    private static void revalidate(@Nullable ServerWebExchange exchange) {
+        if (exchange == null) {
+            return;
+        }
+
+        exchange.getResponse().beforeCommit(() -> {
+            exchange.getResponse().getHeaders().setCacheControl(CacheControl.noCache());
+            return Mono.empty();
+        });
+    }
+}
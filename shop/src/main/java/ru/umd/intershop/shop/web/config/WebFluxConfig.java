@@ -1,21 +1,63 @@
 package ru.umd.intershop.shop.web.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.reactive.config.ResourceHandlerRegistration;
 import org.springframework.web.reactive.config.ResourceHandlerRegistry;
 import org.springframework.web.reactive.config.WebFluxConfigurer;
+import ru.umd.intershop.shop.service.config.ImageProperties;
 
 import java.io.File;
+import java.io.IOException;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebFluxConfig implements WebFluxConfigurer {
+    private final ImageProperties imageProperties;
 
     @Value("${app.image-file-base-path}")
     private String imageBasePath;
 
+    /**
+     * Изображения отдаются обработчиком ресурсов: он отвечает 304 по ETag и Last-Modified,
+     * обслуживает запросы Range и передаёт файл (или его диапазон) без копирования через zero-copy
+     */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/images/**")
-            .addResourceLocations("file:" + imageBasePath + File.separator);
+        ResourceHandlerRegistration images = registry.addResourceHandler("/images/**")
+            .addResourceLocations("file:" + imageBasePath + File.separator)
+            .setEtagGenerator(WebFluxConfig::imageEtag);
+
+        if (!imageProperties.getCacheMaxAge().isZero()) {
+            images.setCacheControl(
+                CacheControl.maxAge(imageProperties.getCacheMaxAge())
+                    .cachePublic()
+                    .immutable()
+            );
+        }
+
+        images
+            // Без кэша разрешённых путей: вариант, появившийся после запроса оригинала, будет найден
+            .resourceChain(false)
+            .addResolver(new ImageVariantResourceResolver());
+    }
+
+    /**
+     * Строгий ETag из хэша имени, размера и времени изменения файла: совпадение означает тот же файл
+     * без чтения его содержимого
+     */
+    private static String imageEtag(Resource resource) {
+        try {
+            return "\"%x-%x-%x\"".formatted(
+                String.valueOf(resource.getFilename()).hashCode(),
+                resource.contentLength(),
+                resource.lastModified()
+            );
+        } catch (IOException e) {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
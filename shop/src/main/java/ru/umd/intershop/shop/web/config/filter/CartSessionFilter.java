@@ -0,0 +1,56 @@
+package ru.umd.intershop.shop.web.config.filter;
+
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Определяет посетителя по cookie корзины и кладёт его идентификатор в атрибут запроса.
+ * Новому посетителю выдаётся случайный идентификатор. Серверная сессия для этого не нужна:
+ * корзина хранится в базе, cookie лишь указывает на неё.
+ */
+@Component
+public class CartSessionFilter implements WebFilter {
+    public static final String ATTRIBUTE = "cartSessionId";
+
+    public static final String COOKIE_NAME = "CART_SESSION";
+
+    private static final Duration COOKIE_MAX_AGE = Duration.ofDays(30);
+
+    private static final Pattern SESSION_ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    private static final String IMAGES_PATH = "/images/";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // Изображения кэшируются публично, Set-Cookie в их ответах недопустим
+        if (exchange.getRequest().getPath().value().startsWith(IMAGES_PATH)) {
+            return chain.filter(exchange);
+        }
+
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(COOKIE_NAME);
+        String sessionId;
+        if (cookie != null && SESSION_ID_PATTERN.matcher(cookie.getValue()).matches()) {
+            sessionId = cookie.getValue();
+        } else {
+            sessionId = UUID.randomUUID().toString().replace("-", "");
+            exchange.getResponse().addCookie(
+                ResponseCookie.from(COOKIE_NAME, sessionId)
+                    .path("/")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .maxAge(COOKIE_MAX_AGE)
+                    .build()
+            );
+        }
+
+        exchange.getAttributes().put(ATTRIBUTE, sessionId);
+        return chain.filter(exchange);
+    }
+}
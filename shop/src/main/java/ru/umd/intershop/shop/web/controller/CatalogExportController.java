@@ -0,0 +1,92 @@
+package ru.umd.intershop.shop.web.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.service.item.CatalogExportService;
+
+import java.util.Locale;
+
+@Controller
+@RequiredArgsConstructor
+public class CatalogExportController {
+    private final CatalogExportService catalogExportService;
+
+    /**
+     * Выгрузка каталога для партнёров. Ответ пишется фрагментами с учётом backpressure
+     * и сжимается gzip, если клиент его принимает.
+     */
+    @GetMapping("/items/export")
+    public Mono<Void> exportItems(
+        @RequestParam(name = "format", defaultValue = "NDJSON") ExportFormatEnum format,
+        ServerWebExchange exchange
+    ) {
+        boolean gzip = acceptsGzip(exchange.getRequest().getHeaders());
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8"));
+        headers.setContentDisposition(
+            ContentDisposition.attachment().filename("items." + format.getFileExtension()).build()
+        );
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        return response.writeWith(
+            catalogExportService
+                .export(format, gzip)
+                .map(bufferFactory::wrap)
+        );
+    }
+
+    /**
+     * Разбор Accept-Encoding с весами: явная запись gzip важнее {@code *},
+     * а нулевой вес (q=0, q=0.0, q=0.000) означает отказ от кодировки.
+     */
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String element : value.split(",")) {
+                String[] parts = element.split(";");
+                String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+                if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                    gzipWeight = Math.max(gzipWeight == null ? 0 : gzipWeight, weight(parts));
+                } else if (coding.equals("*")) {
+                    anyWeight = Math.max(anyWeight == null ? 0 : anyWeight, weight(parts));
+                }
+            }
+        }
+
+        Double weight = gzipWeight != null ? gzipWeight : anyWeight;
+        return weight != null && weight > 0;
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    // Некорректный вес не даёт согласия на кодировку
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+}
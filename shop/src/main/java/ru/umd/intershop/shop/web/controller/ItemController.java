@@ -7,15 +7,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.result.view.Rendering;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.shop.common.constant.CartItemAction;
+import ru.umd.intershop.shop.common.constant.ImageVariantEnum;
 import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
 import ru.umd.intershop.shop.service.dto.*;
 import ru.umd.intershop.shop.service.item.ItemService;
 import ru.umd.intershop.shop.service.order.OrderService;
+import ru.umd.intershop.shop.web.config.filter.CartSessionFilter;
 import ru.umd.intershop.shop.web.model.ItemModel;
 import ru.umd.intershop.shop.web.model.PagingModel;
 
@@ -37,15 +40,19 @@ public class ItemController {
         @RequestParam(name = "pageSize", defaultValue = "10") @Max(100) Integer pageSize,
         @RequestParam(name = "pageNumber", defaultValue = "0") @Min(0) Integer pageNumber,
         @RequestParam(name = "sort", defaultValue = "NO") ItemSortingEnum sort,
-        @RequestParam(name = "search", required = false) String search
+        @RequestParam(name = "search", required = false) String search,
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @RequestAttribute(CartSessionFilter.ATTRIBUTE) String cartSessionId
     ) {
-        Mono<ItemPageDto> itemsPageMono = itemService.findAllActive(
-            Pageable.ofSize(pageSize).withPage(pageNumber),
-            sort,
-            search
-        );
+        Mono<ItemPageDto> itemsPageMono = StringUtils.hasText(cursor) && !StringUtils.hasText(search) ?
+            itemService.findAllActiveByCursor(cursor, pageSize, sort) :
+            itemService.findAllActive(
+                Pageable.ofSize(pageSize).withPage(pageNumber),
+                sort,
+                search
+            );
 
-        Mono<OrderDto> cartMono = orderService.getCart();
+        Mono<OrderDto> cartMono = orderService.getCart(cartSessionId);
 
         return Mono.zip(itemsPageMono, cartMono)
             .map(tuple -> {
@@ -59,7 +66,7 @@ public class ItemController {
                             .findFirst();
                         return ItemModel.builder()
                             .id(item.getId())
-                            .imgPath(item.getImagePath())
+                            .imgPath(item.getImagePath(ImageVariantEnum.THUMBNAIL))
                             .title(item.getName())
                             .description(item.getDescription())
                             .price(item.getPrice())
@@ -85,11 +92,14 @@ public class ItemController {
     }
 
     @GetMapping(path = "/items/{id}")
-    public Mono<Rendering> itemPage(@PathVariable Long id) {
+    public Mono<Rendering> itemPage(
+        @PathVariable Long id,
+        @RequestAttribute(CartSessionFilter.ATTRIBUTE) String cartSessionId
+    ) {
         return Mono.zip(
                 itemService.findById(id)
                     .switchIfEmpty(Mono.error(new RuntimeException("Item not found"))),
-                orderService.getCart()
+                orderService.getCart(cartSessionId)
             )
             .map(tuple -> {
                 var item = tuple.getT1();
@@ -101,7 +111,7 @@ public class ItemController {
 
                 var itemModel = ItemModel.builder()
                     .id(item.getId())
-                    .imgPath("images/" + item.getImageFileName())
+                    .imgPath(item.getImagePath(ImageVariantEnum.DETAIL))
                     .title(item.getName())
                     .description(item.getDescription())
                     .price(item.getPrice())
@@ -115,13 +125,17 @@ public class ItemController {
     }
 
     @PostMapping(path = "/items/{id}", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
-    public Mono<Rendering> updateCartItem(@PathVariable Long id, ServerWebExchange exchange) {
+    public Mono<Rendering> updateCartItem(
+        @PathVariable Long id,
+        @RequestAttribute(CartSessionFilter.ATTRIBUTE) String cartSessionId,
+        ServerWebExchange exchange
+    ) {
         return exchange.getFormData().flatMap(formData -> {
             if (!formData.containsKey("action")) {
                 return Mono.just(Rendering.redirectTo("redirectBack").build());
             }
             CartItemAction action = CartItemAction.valueOf(formData.getFirst("action").toUpperCase());
-            return orderService.updateItemCount(id, action)
+            return orderService.updateItemCount(cartSessionId, id, action)
                 .then(Mono.just(Rendering.redirectTo("redirectBack").build()));
         });
     }
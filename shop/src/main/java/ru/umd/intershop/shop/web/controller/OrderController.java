@@ -1,5 +1,7 @@
 package ru.umd.intershop.shop.web.controller;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -9,9 +11,14 @@ import org.springframework.web.reactive.result.view.Rendering;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.client.api.PaymentsApi;
 import ru.umd.intershop.client.model.PaymentRequest;
+import ru.umd.intershop.shop.common.constant.ImageVariantEnum;
+import ru.umd.intershop.shop.service.exception.CartItemUnavailableException;
+import ru.umd.intershop.shop.service.exception.CheckoutTotalChangedException;
 import ru.umd.intershop.shop.service.order.OrderService;
+import ru.umd.intershop.shop.web.config.filter.CartSessionFilter;
 import ru.umd.intershop.shop.web.model.ItemModel;
 import ru.umd.intershop.shop.web.model.OrderModel;
+import ru.umd.intershop.shop.web.model.PagingModel;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -25,11 +32,13 @@ public class OrderController {
     private final PaymentsApi paymentsApi;
 
     @GetMapping("/orders")
-    public Mono<Rendering> orders() {
-        return orderService.findAllCompleted()
-            .collectList()
-            .map(orderDtoList -> {
-                List<OrderModel> orderModels = orderDtoList.stream()
+    public Mono<Rendering> orders(
+        @RequestParam(name = "pageSize", defaultValue = "10") @Min(1) @Max(100) Integer pageSize,
+        @RequestParam(name = "pageNumber", defaultValue = "0") @Min(0) Integer pageNumber
+    ) {
+        return orderService.findCompleted(pageNumber, pageSize)
+            .map(orderPage -> {
+                List<OrderModel> orderModels = orderPage.getOrderList().stream()
                     .map(
                         orderDto ->
                             OrderModel.builder()
@@ -45,8 +54,16 @@ public class OrderController {
                                 .build()
                     )
                     .toList();
+                PagingModel paging = PagingModel.builder()
+                    .pageSize(orderPage.getPageSize())
+                    .pageNumber(orderPage.getPage())
+                    .hasPrevious(orderPage.getPage() > 0)
+                    .hasNext(orderPage.isHasNext())
+                    .build();
+
                 return Rendering.view("orders")
                     .modelAttribute("orders", orderModels)
+                    .modelAttribute("paging", paging)
                     .build();
             });
     }
@@ -65,7 +82,7 @@ public class OrderController {
                                    .id(orderItemDto.getItem().getId())
                                    .title(orderItemDto.getItem().getName())
                                    .description(orderItemDto.getItem().getDescription())
-                                   .imgPath(orderItemDto.getItem().getImagePath())
+                                   .imgPath(orderItemDto.getItem().getImagePath(ImageVariantEnum.THUMBNAIL))
                                    .count(orderItemDto.getCount())
                                    .price(orderItemDto.getItem().getPrice())
                                    .build())
@@ -80,15 +97,15 @@ public class OrderController {
     }
 
     @GetMapping("/cart/items")
-    public Mono<Rendering> cart() {
-        return orderService.getCart()
+    public Mono<Rendering> cart(@RequestAttribute(CartSessionFilter.ATTRIBUTE) String cartSessionId) {
+        return orderService.getCart(cartSessionId)
             .flatMap(cart -> {
                 List<ItemModel> items = cart.getItems().stream()
                     .map(orderItemDto -> ItemModel.builder()
                         .id(orderItemDto.getItem().getId())
                         .title(orderItemDto.getItem().getName())
                         .description(orderItemDto.getItem().getDescription())
-                        .imgPath(orderItemDto.getItem().getImagePath())
+                        .imgPath(orderItemDto.getItem().getImagePath(ImageVariantEnum.THUMBNAIL))
                         .count(orderItemDto.getCount())
                         .price(orderItemDto.getItem().getPrice())
                         .build())
@@ -137,29 +154,27 @@ public class OrderController {
     }
 
     @PostMapping("/buy")
-    public Mono<Rendering> processOrder() {
-        return orderService.getCart()
-            .flatMap(cart -> {
-                // Вычисляем общую сумму точно так же, как в методе cart()
-                BigDecimal totalAmount = cart.getItems().stream()
-                    .map(orderItem -> orderItem.getItem().getPrice()
-                        .multiply(BigDecimal.valueOf(orderItem.getCount())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+    public Mono<Rendering> processOrder(@RequestAttribute(CartSessionFilter.ATTRIBUTE) String cartSessionId) {
+        // Списывается ровно та сумма, которая будет записана в заказ
+        return orderService.prepareCheckout(cartSessionId)
+            .flatMap(checkout -> {
                 var paymentRequest = new PaymentRequest();
-                paymentRequest.setAmount(totalAmount.doubleValue());
+                paymentRequest.setAmount(checkout.getTotalPrice().doubleValue());
 
                 return paymentsApi.makePayment(paymentRequest)
                     .flatMap(response -> {
                         if (response.getSuccess()) {
-                            return orderService.processCart()
+                            return orderService.processCart(cartSessionId, checkout)
                                 .map(orderId -> Rendering.redirectTo("/orders/" + orderId + "?isNew=true").build());
                         } else {
                             return Mono.just(Rendering.redirectTo("/cart/items?paymentError=true").build());
                         }
                     })
                     .onErrorResume(ex -> {
-                        if (ex instanceof WebClientResponseException.BadRequest) {
+                        if (ex instanceof CheckoutTotalChangedException) {
+                            // Корзина или цены изменились между расчётом суммы и оформлением заказа
+                            return Mono.just(Rendering.redirectTo("/cart/items?cartChanged=true").build());
+                        } else if (ex instanceof WebClientResponseException.BadRequest) {
                             // Недостаточно средств на счете
                             return Mono.just(Rendering.redirectTo("/cart/items?paymentError=true").build());
                         } else {
@@ -167,7 +182,11 @@ public class OrderController {
                             return Mono.just(Rendering.redirectTo("/cart/items?serviceError=true").build());
                         }
                     });
-            });
+            })
+            .onErrorResume(
+                CartItemUnavailableException.class,
+                ex -> Mono.just(Rendering.redirectTo("/cart/items?unavailableItems=true").build())
+            );
     }
 
 }
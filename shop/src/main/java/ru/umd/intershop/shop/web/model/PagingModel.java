@@ -17,6 +17,10 @@ public class PagingModel {
 
     private Boolean hasNext;
 
+    private String nextCursor;
+
+    private String previousCursor;
+
     public static PagingModel of(ItemPageDto items) {
         boolean hasPrevious = items.getPage() > 0;
         boolean hasNext = items.getPage() < items.getTotalPages() - 1;
@@ -26,6 +30,8 @@ public class PagingModel {
             .pageNumber(items.getPage())
             .hasPrevious(hasPrevious)
             .hasNext(hasNext)
+            .nextCursor(items.getNextCursor())
+            .previousCursor(items.getPreviousCursor())
             .build();
     }
     public Integer pageSize() {
@@ -43,4 +49,12 @@ public class PagingModel {
     public Boolean hasNext() {
         return Objects.requireNonNullElse(this.hasNext, false);
     }
+
+    public String nextCursor() {
+        return this.nextCursor;
+    }
+
+    public String previousCursor() {
+        return this.previousCursor;
+    }
 }
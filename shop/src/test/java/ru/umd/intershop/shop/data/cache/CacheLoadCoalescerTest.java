@@ -0,0 +1,120 @@
+package ru.umd.intershop.shop.data.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Объединение загрузок внутри узла: Redis нужен только для распределённой блокировки, которая здесь выключена
+ */
+class CacheLoadCoalescerTest {
+    private static final String KEY = "test:coalesce";
+
+    private final CacheLoadCoalescer cacheLoadCoalescer = new CacheLoadCoalescer(
+        mock(ReactiveStringRedisTemplate.class),
+        new CacheProperties()
+    );
+
+    @Test
+    public void testConcurrentCallersSubscribeToLoaderOnce() {
+        AtomicInteger loaderCalls = new AtomicInteger();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Supplier<Mono<String>> loader = () -> {
+            loaderCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200))
+                .doOnSubscribe(subscription -> subscriptions.incrementAndGet())
+                .map(tick -> "loaded");
+        };
+
+        // Десять одновременных промахов по одному ключу из разных потоков
+        Flux<String> results = Flux.range(0, 10)
+            .flatMap(i -> cacheLoadCoalescer
+                .coalesce(KEY, Mono::<String>empty, loader)
+                .subscribeOn(Schedulers.parallel()));
+
+        StepVerifier.create(results.collectList())
+            .assertNext(values -> {
+                assertEquals(10, values.size());
+                assertEquals(1, values.stream().distinct().count());
+            })
+            .verifyComplete();
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    public void testRefreshRunsOncePerKeyWithoutCoalescing() {
+        CacheProperties properties = new CacheProperties();
+        properties.getCoalescing().setEnabled(false);
+        CacheLoadCoalescer withoutCoalescing = new CacheLoadCoalescer(mock(ReactiveStringRedisTemplate.class), properties);
+
+        AtomicInteger loaderCalls = new AtomicInteger();
+        Supplier<Mono<String>> loader = () -> {
+            loaderCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200)).map(tick -> "refreshed");
+        };
+
+        // Десять обращений к устаревшему значению, пока первое обновление ещё идёт
+        Flux<String> results = Flux.range(0, 10)
+            .flatMap(i -> withoutCoalescing
+                .refresh(KEY, Mono::<String>empty, loader)
+                .subscribeOn(Schedulers.parallel()));
+
+        StepVerifier.create(results.collectList())
+            .assertNext(values -> assertEquals(1, values.size()))
+            .verifyComplete();
+        assertEquals(1, loaderCalls.get());
+
+        // После завершения обновления ключ снова можно обновлять
+        StepVerifier.create(withoutCoalescing.refresh(KEY, Mono::<String>empty, loader))
+            .expectNext("refreshed")
+            .verifyComplete();
+        assertEquals(2, loaderCalls.get());
+    }
+
+    @Test
+    public void testFailedLoadIsNotReused() {
+        StepVerifier.create(cacheLoadCoalescer.coalesce(
+                KEY,
+                Mono::<String>empty,
+                () -> Mono.error(new IllegalStateException("БД недоступна"))
+            ))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        // Следующий промах загружает значение заново, а не получает закэшированную ошибку
+        StepVerifier.create(cacheLoadCoalescer.coalesce(KEY, Mono::<String>empty, () -> Mono.just("fresh")))
+            .expectNext("fresh")
+            .verifyComplete();
+    }
+
+    @Test
+    public void testCancelledLoadDoesNotBlockKey() {
+        Disposable cancelled = cacheLoadCoalescer
+            .coalesce(KEY, Mono::<String>empty, () -> Mono.delay(Duration.ofMillis(300)).map(tick -> "cancelled"))
+            .subscribe();
+        cancelled.dispose();
+
+        // Ключ освобождается: рано или поздно промах выполняет собственную загрузку
+        Mono<String> fresh = Mono.defer(() -> cacheLoadCoalescer.coalesce(KEY, Mono::<String>empty, () -> Mono.just("fresh")))
+            .filter("fresh"::equals)
+            .repeatWhenEmpty(repeats -> repeats.take(50).delayElements(Duration.ofMillis(100)));
+
+        StepVerifier.create(fresh)
+            .expectNext("fresh")
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+    }
+}
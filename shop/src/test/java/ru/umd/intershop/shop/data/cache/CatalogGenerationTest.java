@@ -0,0 +1,96 @@
+package ru.umd.intershop.shop.data.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.dto.ItemDto;
+import ru.umd.intershop.shop.service.item.ItemService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class CatalogGenerationTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+        catalogGeneration.increment().block();
+    }
+
+    @Test
+    public void testIncrementMovesReadersToNewNamespace() {
+        saveItem("First");
+
+        long oldGeneration = catalogGeneration.current().block();
+        assertEquals(List.of("First"), findFirstPageNames());
+        String oldKey = pageKey(oldGeneration);
+        assertEquals(Boolean.TRUE, stringRedisTemplate.hasKey(oldKey).block());
+
+        // Товар добавлен в обход сервиса администрирования: страница текущего поколения о нём не знает
+        saveItem("Second");
+        assertEquals(List.of("First"), findFirstPageNames());
+
+        long newGeneration = catalogGeneration.increment().block();
+        assertEquals(oldGeneration + 1, newGeneration);
+        assertEquals(newGeneration, catalogGeneration.current().block());
+
+        StepVerifier.create(itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.ALPHA, null))
+            .assertNext(page -> {
+                assertEquals(2, page.getTotalItems());
+                assertEquals(List.of("First", "Second"), page.getItemList().stream().map(ItemDto::getName).toList());
+            })
+            .verifyComplete();
+        assertEquals(Boolean.TRUE, stringRedisTemplate.hasKey(pageKey(newGeneration)).block());
+
+        // Страница прошлого поколения больше не читается и не удаляется явно, а доживает свой TTL
+        Duration oldTtl = stringRedisTemplate.getExpire(oldKey).block();
+        assertNotNull(oldTtl);
+        assertTrue(oldTtl.compareTo(Duration.ZERO) > 0, oldTtl.toString());
+    }
+
+    private List<String> findFirstPageNames() {
+        return itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.ALPHA, null)
+            .map(page -> page.getItemList().stream().map(ItemDto::getName).toList())
+            .block();
+    }
+
+    private static String pageKey(long generation) {
+        return "items:page:" + generation + ":0:10:ALPHA:noSearch";
+    }
+
+    private void saveItem(String name) {
+        itemRepository.save(ItemEntity.builder()
+                                .name(name)
+                                .description(name)
+                                .price(new BigDecimal("1.00"))
+                                .imageFileName(name + ".jpg")
+                                .isActive(true)
+                                .build()).block();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.umd.intershop.shop.data.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.admin.dto.ItemForm;
+import ru.umd.intershop.shop.service.admin.item.ItemAdminService;
+import ru.umd.intershop.shop.service.dto.ItemDto;
+import ru.umd.intershop.shop.service.item.ItemService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "cache.change-feed.enabled=true")
+@Import(TestcontainersConfiguration.class)
+class ItemChangeFeedTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ItemAdminService itemAdminService;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+    }
+
+    @Test
+    public void testDirectDatabaseUpdateInvalidatesCaches() {
+        ItemEntity entity = itemRepository.save(
+            ItemEntity.builder()
+                .name("Feed Item")
+                .description("Changed outside of the application")
+                .price(new BigDecimal("10.00"))
+                .imageFileName("feed.jpg")
+                .isActive(true)
+                .build()
+        ).block();
+        Long id = entity.getId();
+
+        // Заполняем кэш товара и первой страницы каталога
+        assertEquals(0, new BigDecimal("10.00").compareTo(itemService.findById(id).block().getPrice()));
+        itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.NO, null).block();
+
+        // Изменение мимо приложения: о нём кэш узнаёт только из уведомления Postgres
+        databaseClient
+            .sql("UPDATE items SET price = 25.00 WHERE id = :id")
+            .bind("id", id)
+            .fetch()
+            .rowsUpdated()
+            .block();
+
+        StepVerifier.create(awaitPrice(itemService.findById(id)))
+            .assertNext(dto -> assertEquals(0, new BigDecimal("25.00").compareTo(dto.getPrice())))
+            .verifyComplete();
+
+        StepVerifier.create(awaitPrice(
+                itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.NO, null)
+                    .map(page -> page.getItemList().getFirst())
+            ))
+            .assertNext(dto -> assertEquals(id, dto.getId()))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testAdminSaveBumpsGenerationOnce() throws InterruptedException {
+        // Запись мимо приложения переключает поколение через ленту: так видно, что подписка уже оформлена
+        long initial = generation();
+        ItemEntity entity = itemRepository.save(
+            ItemEntity.builder()
+                .name("Outside Item")
+                .price(new BigDecimal("1.00"))
+                .isActive(true)
+                .build()
+        ).block();
+        long settled = awaitGenerationAbove(initial);
+
+        ItemForm form = new ItemForm();
+        form.setName("Admin Item");
+        form.setPrice(new BigDecimal("2.00"));
+        itemAdminService.createItem(form).block();
+        assertEquals(settled + 1, generation());
+
+        // Уведомление о записи сервиса доходит до ленты, но поколение второй раз не переключает
+        Thread.sleep(1_000);
+        assertEquals(settled + 1, generation());
+
+        // Следующая запись мимо приложения снова переключает поколение, значит уведомления обработаны
+        databaseClient
+            .sql("UPDATE items SET price = 3.00 WHERE id = :id")
+            .bind("id", entity.getId())
+            .fetch()
+            .rowsUpdated()
+            .block();
+        assertEquals(settled + 2, awaitGenerationAbove(settled + 1));
+        Thread.sleep(1_000);
+        assertEquals(settled + 2, generation());
+    }
+
+    @Test
+    public void testContentOnlyUpdateKeepsGeneration() throws InterruptedException {
+        long initial = generation();
+        ItemEntity entity = itemRepository.save(
+            ItemEntity.builder()
+                .name("Content Item")
+                .description("Old description")
+                .price(new BigDecimal("4.00"))
+                .isActive(true)
+                .build()
+        ).block();
+        long settled = awaitGenerationAbove(initial);
+        itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.NO, null).block();
+
+        // Описание не влияет на состав и порядок страниц: товар обновляется в кэше без смены поколения
+        databaseClient
+            .sql("UPDATE items SET description = 'New description' WHERE id = :id")
+            .bind("id", entity.getId())
+            .fetch()
+            .rowsUpdated()
+            .block();
+
+        StepVerifier.create(
+                Mono.defer(() -> itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.NO, null))
+                    .map(page -> page.getItemList().getFirst())
+                    .filter(dto -> "New description".equals(dto.getDescription()))
+                    .repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(100)).take(50))
+            )
+            .assertNext(dto -> assertEquals(entity.getId(), dto.getId()))
+            .verifyComplete();
+        Thread.sleep(500);
+        assertEquals(settled, generation());
+    }
+
+    private long generation() {
+        return stringRedisTemplate
+            .opsForValue()
+            .get(CatalogGeneration.GENERATION_KEY)
+            .map(Long::parseLong)
+            .defaultIfEmpty(0L)
+            .block();
+    }
+
+    /**
+     * Ждёт переключения поколения и даёт ленте обработать уведомления, пришедшие вместе с ним
+     */
+    private long awaitGenerationAbove(long generation) throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && generation() <= generation; attempt++) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(500);
+        return generation();
+    }
+
+    private Mono<ItemDto> awaitPrice(Mono<ItemDto> lookup) {
+        return Mono.defer(() -> lookup)
+            .filter(dto -> new BigDecimal("25.00").compareTo(dto.getPrice()) == 0)
+            .repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(100)).take(50))
+            .retryWhen(Retry.fixedDelay(3, Duration.ofMillis(100)));
+    }
+}
@@ -0,0 +1,109 @@
+package ru.umd.intershop.shop.data.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
+import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+import ru.umd.intershop.shop.data.config.CacheProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+@SpringBootTest(properties = "cache.local.enabled=true")
+@Import(TestcontainersConfiguration.class)
+class ItemNearCacheTest {
+    private static final ItemCacheModel ITEM = new ItemCacheModel("1", "Item", new BigDecimal("10.00"), null, null);
+
+    @Autowired
+    private ItemNearCache itemNearCache;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    /**
+     * Второй узел магазина: свой локальный кэш, общий Redis
+     */
+    private ItemNearCache otherNode;
+
+    @BeforeEach
+    public void setUp() {
+        otherNode = new ItemNearCache(stringRedisTemplate, cacheProperties);
+        otherNode.subscribeToInvalidations();
+        itemNearCache.evictItems(List.of(1L, 2L));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        otherNode.unsubscribeFromInvalidations();
+    }
+
+    @Test
+    public void testLocalHitAndMiss() {
+        itemNearCache.putItem(1L, ITEM);
+
+        StepVerifier.create(itemNearCache.getItem(1L))
+            .expectNext(ITEM)
+            .verifyComplete();
+        StepVerifier.create(itemNearCache.getItem(2L))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testLookupIsEvaluatedOnSubscription() {
+        // Цепочка собрана до записи в кэш, но читает его только при подписке
+        Mono<ItemCacheModel> lookup = itemNearCache.getItem(1L);
+
+        StepVerifier.create(lookup).verifyComplete();
+        itemNearCache.putItem(1L, ITEM);
+        StepVerifier.create(lookup).expectNext(ITEM).verifyComplete();
+    }
+
+    @Test
+    public void testItemInvalidationReachesOtherNode() {
+        otherNode.putItem(1L, ITEM);
+        itemNearCache.putItem(1L, ITEM);
+
+        // Сообщение повторяется, пока подписка второго узла не установлена и не получит его
+        StepVerifier.create(awaitEvicted(itemNearCache.invalidateItem(1L), otherNode.getItem(1L)))
+            .verifyComplete();
+        StepVerifier.create(itemNearCache.getItem(1L))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testPagesInvalidationReachesOtherNode() {
+        ItemPageCacheModel page = ItemPageCacheModel.createNormalized(List.of(1L), 1, 1, 0, 10, "NO", null);
+        otherNode.putPage("items:page:test", page);
+        otherNode.putGeneration(7L);
+
+        StepVerifier.create(awaitEvicted(itemNearCache.invalidatePages(), otherNode.getPage("items:page:test")))
+            .verifyComplete();
+        StepVerifier.create(otherNode.getGeneration())
+            .verifyComplete();
+    }
+
+    /**
+     * Завершается пусто, когда запись исчезла из кэша второго узла. Повтор возможен потому,
+     * что локальный кэш читается при каждой подписке.
+     */
+    private static <T> Mono<T> awaitEvicted(Mono<Void> invalidation, Mono<T> lookup) {
+        return invalidation
+            .then(Mono.delay(Duration.ofMillis(100)))
+            .then(lookup)
+            .flatMap(value -> Mono.<T>error(new IllegalStateException("Запись всё ещё в локальном кэше")))
+            .retryWhen(Retry.fixedDelay(50, Duration.ofMillis(100)));
+    }
+}
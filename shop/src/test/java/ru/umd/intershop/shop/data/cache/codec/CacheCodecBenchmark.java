@@ -0,0 +1,73 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
+import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Сравнение кодеков страницы из 100 товаров: размер записи и время сериализации/десериализации.
+ * Запуск: {@code ./gradlew :shop:cacheCodecBenchmark}
+ */
+public class CacheCodecBenchmark {
+    private static final int WARMUP_ITERATIONS = 20_000;
+
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        ItemPageCacheModel page = page(100);
+
+        Jackson2JsonRedisSerializer<ItemPageCacheModel> json = new Jackson2JsonRedisSerializer<>(ItemPageCacheModel.class);
+        ItemPageCacheModelBinaryCodec codec = new ItemPageCacheModelBinaryCodec(new ItemCacheModelBinaryCodec());
+
+        Map<String, RedisSerializer<ItemPageCacheModel>> serializers = new LinkedHashMap<>();
+        serializers.put("JSON (Jackson)", json);
+        serializers.put("BINARY", new VersionedBinaryRedisSerializer<>(codec, json, 0));
+        serializers.put("BINARY + LZ4", new VersionedBinaryRedisSerializer<>(codec, json, 1));
+
+        System.out.printf("%-16s %10s %18s %18s%n", "codec", "bytes", "serialize ns/op", "deserialize ns/op");
+        serializers.forEach((name, serializer) -> {
+            byte[] bytes = serializer.serialize(page);
+
+            measure(() -> serializer.serialize(page), WARMUP_ITERATIONS);
+            long serializeNs = measure(() -> serializer.serialize(page), MEASURED_ITERATIONS);
+
+            measure(() -> serializer.deserialize(bytes), WARMUP_ITERATIONS);
+            long deserializeNs = measure(() -> serializer.deserialize(bytes), MEASURED_ITERATIONS);
+
+            System.out.printf("%-16s %10d %18d %18d%n", name, bytes.length, serializeNs, deserializeNs);
+        });
+    }
+
+    private static long measure(Supplier<?> operation, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            // Результат сохраняется, чтобы JIT не выбросил вычисление
+            sink = operation.get();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static ItemPageCacheModel page(int size) {
+        List<ItemCacheModel> items = IntStream.range(0, size)
+            .mapToObj(i -> new ItemCacheModel(
+                String.valueOf(i + 1),
+                "Товар " + i,
+                new BigDecimal("199.99").add(BigDecimal.valueOf(i)),
+                "Описание товара номер " + i + ", подробное и довольно длинное",
+                "item-" + i + ".jpg"
+            ))
+            .toList();
+
+        return new ItemPageCacheModel(items, 1000, 10, 0, size, "PRICE", null, System.currentTimeMillis(), null);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.umd.intershop.shop.data.cache.codec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import ru.umd.intershop.shop.data.cache.model.ItemCacheModel;
+import ru.umd.intershop.shop.data.cache.model.ItemPageCacheModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedBinaryRedisSerializerTest {
+    private final Jackson2JsonRedisSerializer<ItemPageCacheModel> jsonSerializer =
+        new Jackson2JsonRedisSerializer<>(ItemPageCacheModel.class);
+
+    private final VersionedBinaryRedisSerializer<ItemPageCacheModel> binarySerializer =
+        new VersionedBinaryRedisSerializer<>(
+            new ItemPageCacheModelBinaryCodec(new ItemCacheModelBinaryCodec()),
+            jsonSerializer,
+            512
+        );
+
+    @Test
+    public void testPageRoundTripIsCompressedAndSmallerThanJson() {
+        ItemPageCacheModel page = page(100);
+
+        byte[] binary = binarySerializer.serialize(page);
+
+        assertEquals(page, binarySerializer.deserialize(binary));
+        assertTrue(binary.length < jsonSerializer.serialize(page).length);
+    }
+
+    @Test
+    public void testSmallValueWithNullFieldsRoundTrip() {
+        ItemPageCacheModel page = new ItemPageCacheModel(
+            List.of(new ItemCacheModel("1", "Товар", null, null, "1.jpg")),
+            1,
+            1,
+            0,
+            10,
+            "NO",
+            null,
+            42L,
+            null
+        );
+
+        assertEquals(page, binarySerializer.deserialize(binarySerializer.serialize(page)));
+    }
+
+    @Test
+    public void testReadsJsonWrittenBeforeCodecSwitch() {
+        ItemPageCacheModel page = page(3);
+
+        assertEquals(page, binarySerializer.deserialize(jsonSerializer.serialize(page)));
+        assertNull(binarySerializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    public void testNormalizedPageRoundTrip() {
+        ItemPageCacheModel page = ItemPageCacheModel.createNormalized(List.of(3L, 1L, 2L), 3, 1, 0, 10, "ALPHA", null);
+
+        assertEquals(page, binarySerializer.deserialize(binarySerializer.serialize(page)));
+    }
+
+    @Test
+    public void testNormalizedPageIdsAreDeltaEncoded() {
+        List<Long> ascending = LongStream.range(0, 20).map(i -> 1_000_000_000L + i * 3).boxed().toList();
+        List<Long> shuffled = List.of(500L, 12L, Long.MAX_VALUE, 0L, 499L);
+
+        for (List<Long> ids : List.of(ascending, shuffled)) {
+            ItemPageCacheModel page = ItemPageCacheModel.createNormalized(ids, 100, 5, 0, ids.size(), "NO", null);
+            assertEquals(page, binarySerializer.deserialize(binarySerializer.serialize(page)));
+        }
+
+        // Первый id занимает несколько байт, остальные - по одному вместо восьми
+        ItemPageCacheModel page = ItemPageCacheModel.createNormalized(ascending, 100, 5, 0, 20, "NO", null);
+        assertTrue(binarySerializer.serialize(page).length < 20 * Long.BYTES);
+    }
+
+    @Test
+    public void testReadsPageWrittenInVersion2() throws IOException {
+        ItemPageCacheModel page = ItemPageCacheModel.createNormalized(List.of(3L, 1L, 2L), 3, 1, 0, 10, "ALPHA", null);
+
+        // Тело страницы версии 2: id нормализованной страницы восьмибайтовыми числами
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(new ItemCacheModelBinaryCodec().version());
+        BinaryFields.writeVarInt(out, 0);
+        BinaryFields.writeVarInt(out, page.totalItems());
+        BinaryFields.writeVarInt(out, page.totalPages());
+        BinaryFields.writeVarInt(out, page.page());
+        BinaryFields.writeVarInt(out, page.pageSize());
+        BinaryFields.writeString(out, page.sortField());
+        BinaryFields.writeString(out, page.searchQuery());
+        out.writeLong(page.createdAt());
+        BinaryFields.writeVarInt(out, page.itemIds().size() + 1);
+        for (Long id : page.itemIds()) {
+            out.writeLong(id);
+        }
+
+        ItemPageCacheModel read = new ItemPageCacheModelBinaryCodec(new ItemCacheModelBinaryCodec())
+            .read(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())), 2);
+        assertEquals(page, read);
+    }
+
+    private static ItemPageCacheModel page(int size) {
+        List<ItemCacheModel> items = IntStream.range(0, size)
+            .mapToObj(i -> new ItemCacheModel(
+                String.valueOf(i + 1),
+                "Товар " + i,
+                new BigDecimal("199.99").add(BigDecimal.valueOf(i)),
+                "Описание товара номер " + i,
+                "item-" + i + ".jpg"
+            ))
+            .toList();
+
+        return new ItemPageCacheModel(items, 1000, 10, 0, size, "PRICE", "товар", System.currentTimeMillis(), null);
+    }
+}
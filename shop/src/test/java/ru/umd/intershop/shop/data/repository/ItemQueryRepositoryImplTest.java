@@ -0,0 +1,47 @@
+package ru.umd.intershop.shop.data.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class ItemQueryRepositoryImplTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+    }
+
+    @Test
+    public void testInsertAllSplitsRowsBeyondParameterLimit() {
+        // На одну строку больше, чем помещается в один INSERT
+        int count = ItemQueryRepositoryImpl.MAX_INSERT_ROWS + 1;
+        List<ItemEntity> items = IntStream.range(0, count)
+            .mapToObj(i -> ItemEntity.builder()
+                .name("Item " + i)
+                .price(new BigDecimal("1.00"))
+                .isActive(true)
+                .build())
+            .toList();
+
+        StepVerifier.create(itemRepository.insertAll(items).count())
+            .expectNext((long) count)
+            .verifyComplete();
+        StepVerifier.create(itemRepository.countByIsActiveTrue())
+            .expectNext((long) count)
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,140 @@
+package ru.umd.intershop.shop.data.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.r2dbc.core.DatabaseClient;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что каждая сортировка активных товаров читается по индексу из 003-items-sort-indexes.xml,
+ * а не сортируется после полного чтения таблицы. Таблица заполняется до размера, на котором
+ * планировщик выбирает между индексом и полным чтением по собранной статистике.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+class ItemSortIndexPlanTest {
+    private static final int ITEM_COUNT = 50_000;
+
+    private static boolean seeded;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Таблица заполняется один раз на класс: планы только читаются
+     */
+    @BeforeEach
+    public void setUp() {
+        if (seeded) {
+            return;
+        }
+
+        itemRepository.deleteAll().block();
+        // Каждый десятый товар снят с продажи, названия и цены перемешаны относительно id
+        databaseClient
+            .sql("""
+                 INSERT INTO items (name, description, price, image_file_name, is_active, created_at, updated_at) \
+                 SELECT 'Item ' || (g * 7919 % :count), 'Description ' || g, (g * 13 % 1000)::numeric(19, 2), \
+                 g || '.jpg', g % 10 <> 0, now(), now() \
+                 FROM generate_series(1, :count) g
+                 """)
+            .bind("count", ITEM_COUNT)
+            .then()
+            .block();
+        databaseClient.sql("ANALYZE items").then().block();
+        seeded = true;
+    }
+
+    @ParameterizedTest
+    @EnumSource(ItemSortingEnum.class)
+    public void testOffsetPageUsesIndex(ItemSortingEnum sort) {
+        // Запрос строится тем же StatementMapper, что и findAllByIsActiveTrue(Pageable)
+        StatementMapper mapper = r2dbcEntityTemplate
+            .getDataAccessStrategy()
+            .getStatementMapper()
+            .forType(ItemEntity.class);
+        StatementMapper.SelectSpec select = mapper
+            .createSelect("items")
+            .withProjection("*")
+            .withCriteria(Criteria.where("isActive").isTrue())
+            .withPage(PageRequest.of(2, 10, entitySort(sort)));
+
+        assertIndexScan(sort, explain(mapper.getMappedObject(select).toQuery()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ItemSortingEnum.class)
+    public void testKeysetPageUsesIndex(ItemSortingEnum sort) {
+        // Запрос следующей страницы в том виде, в котором его выполняет seekActive
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+            .sql("EXPLAIN " + ItemQueryRepositoryImpl.seekSql(sort, true, true))
+            .bind("id", 20L)
+            .bind("limit", 10);
+        if (sort == ItemSortingEnum.ALPHA) {
+            spec = spec.bind("value", "Item 5000");
+        } else if (sort == ItemSortingEnum.PRICE) {
+            spec = spec.bind("value", new BigDecimal("500.00"));
+        }
+
+        String plan = spec
+            .map(row -> row.get(0, String.class))
+            .all()
+            .collectList()
+            .map(lines -> String.join("\n", lines))
+            .block();
+
+        assertIndexScan(sort, plan);
+    }
+
+    private static void assertIndexScan(ItemSortingEnum sort, String plan) {
+        assertTrue(plan.contains("Index Scan"), "Сортировка " + sort + " должна читаться по индексу:\n" + plan);
+        assertFalse(plan.contains("Sort Key"), "Сортировка " + sort + " не должна требовать отдельной сортировки:\n" + plan);
+        if (sort != ItemSortingEnum.NO) {
+            assertTrue(
+                plan.contains("idx_items_active_" + sort.getEntityField() + "_id"),
+                "Сортировка " + sort + " должна использовать частичный составной индекс:\n" + plan
+            );
+        }
+    }
+
+    private String explain(String sql) {
+        return databaseClient
+            .sql("EXPLAIN " + sql)
+            .map(row -> row.get(0, String.class))
+            .all()
+            .collectList()
+            .map(lines -> String.join("\n", lines))
+            .block();
+    }
+
+    /**
+     * Сортировка страницы так же, как в DefaultItemService: id замыкает любую сортировку
+     */
+    private static Sort entitySort(ItemSortingEnum sort) {
+        return sort == ItemSortingEnum.NO ?
+            Sort.by("id").ascending() :
+            Sort.by(sort.getEntityField()).ascending().and(Sort.by("id").ascending());
+    }
+}
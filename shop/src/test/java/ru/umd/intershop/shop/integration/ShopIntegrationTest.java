@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -22,6 +23,7 @@ import ru.umd.intershop.shop.config.TestcontainersConfiguration;
 import ru.umd.intershop.shop.data.entity.ItemEntity;
 import ru.umd.intershop.shop.data.entity.OrderEntity;
 import ru.umd.intershop.shop.data.repository.*;
+import ru.umd.intershop.shop.web.config.filter.CartSessionFilter;
 
 import java.math.BigDecimal;
 
@@ -33,6 +35,8 @@ import static org.mockito.Mockito.*;
 @AutoConfigureWebTestClient
 @Import(TestcontainersConfiguration.class)
 public class ShopIntegrationTest {
+    private static final String SESSION_ID = "0123456789abcdef0123456789abcdef";
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -54,6 +58,11 @@ public class ShopIntegrationTest {
         orderRepository.deleteAll().block();
         itemRepository.deleteAll().block();
 
+        // Все запросы теста выполняются от имени одного посетителя
+        webTestClient = webTestClient.mutate()
+            .defaultCookie(CartSessionFilter.COOKIE_NAME, SESSION_ID)
+            .build();
+
         // Очищаем состояние моков перед каждым тестом
         reset(paymentsApi);
 
@@ -70,6 +79,38 @@ public class ShopIntegrationTest {
             .thenReturn(Mono.just(paymentResponse));
     }
 
+    /**
+     * Новый посетитель получает cookie корзины, а его корзина не видит чужих товаров
+     */
+    @Test
+    public void testNewVisitorGetsOwnCart() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("100.00"))
+            .isActive(true)
+            .build()).block();
+
+        webTestClient.post()
+            .uri("/items/{id}", item.getId())
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .body(BodyInserters.fromFormData("action", "PLUS"))
+            .exchange()
+            .expectStatus().is3xxRedirection()
+            .expectHeader().doesNotExist(HttpHeaders.SET_COOKIE);
+
+        WebTestClient anonymousClient = webTestClient.mutate()
+            .defaultCookies(cookies -> cookies.remove(CartSessionFilter.COOKIE_NAME))
+            .build();
+        anonymousClient.get()
+            .uri("/cart/items")
+            .exchange()
+            .expectStatus().isOk()
+            .expectCookie().exists(CartSessionFilter.COOKIE_NAME)
+            .expectCookie().httpOnly(CartSessionFilter.COOKIE_NAME, true)
+            .expectBody(String.class)
+            .value(body -> assertFalse(body.contains("Test Item"), "Корзина нового посетителя должна быть пуста"));
+    }
+
     /**
      * Полная цепочка покупки товара
      */
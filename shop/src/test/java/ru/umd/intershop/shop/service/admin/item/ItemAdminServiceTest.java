@@ -0,0 +1,150 @@
+package ru.umd.intershop.shop.service.admin.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.admin.dto.ItemImportErrorDto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"catalog.import.batch-size=2", "catalog.import.max-record-size=200"})
+@Import(TestcontainersConfiguration.class)
+class ItemAdminServiceTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemAdminService itemAdminService;
+
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+    }
+
+    @Test
+    public void testImportCsvInBatchesWithRowErrors() {
+        String csv = """
+                     id,name,description,price,imageFileName
+                     1,Чайник,"Объём 1,7 л
+                     ""стальной""\",1500.00,kettle.jpg
+                     2,,Без названия,10.00,
+                     3,Кружка,Керамика,abc,mug.jpg
+                     4,Ложка,,99.90,
+                     5,Вилка,,12.5,fork.jpg
+                     """;
+        long generationBefore = catalogGeneration.current().block();
+
+        // Файл приходит кусками по 7 байт: границы режут и строки, и многобайтовые символы
+        StepVerifier.create(itemAdminService.importItems(chunked(csv, 7), ExportFormatEnum.CSV))
+            .assertNext(result -> {
+                assertEquals(3, result.getImported());
+                assertEquals(2, result.getFailed());
+                assertEquals(List.of(4L, 5L), result.getErrors().stream().map(ItemImportErrorDto::getLine).toList());
+                assertTrue(result.getErrors().get(1).getMessage().contains("abc"));
+            })
+            .verifyComplete();
+
+        List<ItemEntity> items = itemRepository.findAll()
+            .collectSortedList(Comparator.comparing(ItemEntity::getId))
+            .block();
+        assertEquals(List.of("Чайник", "Ложка", "Вилка"), items.stream().map(ItemEntity::getName).toList());
+        assertEquals("Объём 1,7 л\n\"стальной\"", items.get(0).getDescription());
+        assertEquals(new BigDecimal("12.50"), items.get(2).getPrice());
+        assertTrue(items.stream().allMatch(ItemEntity::getIsActive));
+
+        // Поколение каталога переключается один раз на весь импорт
+        assertEquals(generationBefore + 1, catalogGeneration.current().block());
+    }
+
+    @Test
+    public void testImportNdjsonFromExportFormat() {
+        String ndjson = IntStream.range(0, 5)
+            .mapToObj(i -> "{\"id\":" + i + ",\"name\":\"Item " + i + "\",\"price\":" + (i + 1) + ".25,"
+                           + "\"imageFileName\":\"" + i + ".jpg\",\"isActive\":" + (i != 4) + "}")
+            .reduce("", (a, b) -> a + b + "\n") + "not json\n";
+
+        StepVerifier.create(itemAdminService.importItems(chunked(ndjson, 16), ExportFormatEnum.NDJSON))
+            .assertNext(result -> {
+                assertEquals(5, result.getImported());
+                assertEquals(1, result.getFailed());
+                assertEquals(6L, result.getErrors().get(0).getLine());
+            })
+            .verifyComplete();
+
+        StepVerifier.create(itemRepository.countByIsActiveTrue())
+            .expectNext(4L)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testImportReportsOversizedRecordAsRowError() {
+        // 150 кириллических символов занимают 300 байт, но укладываются в предел записи
+        String csv = "name,description,price\n"
+                     + "Длинная,\"" + "я".repeat(150) + "\",1.00\n"
+                     + "Огромная,\"" + "x".repeat(300) + "\",2.00\n"
+                     + "Короткая,,3.00\n";
+
+        StepVerifier.create(itemAdminService.importItems(chunked(csv, 64), ExportFormatEnum.CSV))
+            .assertNext(result -> {
+                assertEquals(2, result.getImported());
+                assertEquals(1, result.getFailed());
+                assertEquals(3L, result.getErrors().get(0).getLine());
+                assertEquals("Запись длиннее 200 символов", result.getErrors().get(0).getMessage());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testInterruptedImportInvalidatesCacheForSavedBatches() {
+        // Строка без перевода длиннее предела декодера прерывает импорт после первой пачки
+        String csv = "name,price\nПервый,1.00\nВторой,2.00\n" + "x".repeat(5_000);
+        long generationBefore = catalogGeneration.current().block();
+
+        StepVerifier.create(itemAdminService.importItems(chunked(csv, 16), ExportFormatEnum.CSV))
+            .expectError()
+            .verify();
+
+        StepVerifier.create(itemRepository.countByIsActiveTrue())
+            .expectNext(2L)
+            .verifyComplete();
+        assertEquals(generationBefore + 1, catalogGeneration.current().block());
+    }
+
+    @Test
+    public void testImportCsvWithoutRequiredColumnsFails() {
+        StepVerifier.create(itemAdminService.importItems(chunked("title,cost\nA,1\n", 4), ExportFormatEnum.CSV))
+            .expectError(IllegalArgumentException.class)
+            .verify();
+    }
+
+    private static Flux<DataBuffer> chunked(String content, int chunkSize) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+            .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                Arrays.copyOfRange(bytes, i * chunkSize, Math.min(bytes.length, (i + 1) * chunkSize))
+            ));
+    }
+}
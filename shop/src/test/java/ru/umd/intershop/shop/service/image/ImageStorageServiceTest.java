@@ -0,0 +1,107 @@
+package ru.umd.intershop.shop.service.image;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.service.config.ImageProperties;
+import ru.umd.intershop.shop.service.exception.ImageTooLargeException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImageStorageServiceTest {
+
+    @TempDir
+    private Path imageDir;
+
+    private ImageVariantService imageVariantService;
+
+    private ImageStorageService imageStorageService;
+
+    @BeforeEach
+    public void setUp() {
+        ImageProperties properties = new ImageProperties();
+        properties.setMaxUploadSize(DataSize.ofBytes(64));
+        imageVariantService = new ImageVariantService(properties);
+        imageStorageService = new ImageStorageService(properties, imageVariantService, imageDir.toString());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        imageStorageService.shutdown();
+        imageVariantService.shutdown();
+    }
+
+    @Test
+    public void testFileIsNamedByContentHash() throws Exception {
+        String content = "not really an image, but 40 bytes long!!";
+
+        StepVerifier.create(imageStorageService.store(chunked(content, 7), "Photo.JPG"))
+            .expectNext(sha256(content) + ".jpg")
+            .verifyComplete();
+
+        assertEquals(content, Files.readString(imageDir.resolve(sha256(content) + ".jpg")));
+    }
+
+    @Test
+    public void testIdenticalUploadsAreStoredOnce() throws Exception {
+        String content = "same bytes";
+
+        String first = imageStorageService.store(chunked(content, 3), "a.png").block();
+        String second = imageStorageService.store(chunked(content, 5), "b.png").block();
+
+        assertEquals(first, second);
+        assertEquals(1, regularFiles());
+    }
+
+    @Test
+    public void testOversizedUploadIsRejectedAndCleanedUp() throws Exception {
+        StepVerifier.create(imageStorageService.store(chunked("x".repeat(100), 10), "big.jpg"))
+            .expectError(ImageTooLargeException.class)
+            .verify();
+
+        assertEquals(0, regularFiles());
+    }
+
+    @Test
+    public void testUnsafeExtensionIsDropped() throws Exception {
+        StepVerifier.create(imageStorageService.store(chunked("data", 2), "evil.j/../pg"))
+            .expectNext(sha256("data"))
+            .verifyComplete();
+    }
+
+    private long regularFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(imageDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static Flux<DataBuffer> chunked(String content, int chunkSize) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+            .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                Arrays.copyOfRange(bytes, i * chunkSize, Math.min(bytes.length, (i + 1) * chunkSize))
+            ));
+    }
+
+    private static String sha256(String content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(
+            MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package ru.umd.intershop.shop.service.image;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.service.config.ImageProperties;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    private Path imageDir;
+
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    public void setUp() {
+        ImageProperties properties = new ImageProperties();
+        properties.setThumbnailSize(100);
+        properties.setDetailSize(400);
+        imageVariantService = new ImageVariantService(properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        imageVariantService.shutdown();
+    }
+
+    @Test
+    public void testVariantsKeepAspectRatioAndFormat() throws IOException {
+        Path original = imageDir.resolve("item.jpg");
+        ImageIO.write(new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB), "jpeg", original.toFile());
+
+        StepVerifier.create(imageVariantService.generateVariants(original))
+            .verifyComplete();
+
+        BufferedImage thumbnail = ImageIO.read(imageDir.resolve("thumb").resolve("item.jpg").toFile());
+        assertEquals(100, thumbnail.getWidth());
+        assertEquals(50, thumbnail.getHeight());
+
+        BufferedImage detail = ImageIO.read(imageDir.resolve("detail").resolve("item.jpg").toFile());
+        assertEquals(400, detail.getWidth());
+        assertEquals(200, detail.getHeight());
+        assertTrue(Files.size(imageDir.resolve("thumb").resolve("item.jpg")) < Files.size(original));
+    }
+
+    @Test
+    public void testSmallImageIsCopiedWithoutUpscaling() throws IOException {
+        Path original = imageDir.resolve("small.png");
+        ImageIO.write(new BufferedImage(80, 60, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+
+        StepVerifier.create(imageVariantService.generateVariants(original))
+            .verifyComplete();
+
+        assertArrayEquals(Files.readAllBytes(original), Files.readAllBytes(imageDir.resolve("thumb").resolve("small.png")));
+        assertArrayEquals(Files.readAllBytes(original), Files.readAllBytes(imageDir.resolve("detail").resolve("small.png")));
+    }
+
+    @Test
+    public void testUnreadableFileDoesNotFailUpload() throws IOException {
+        Path original = imageDir.resolve("broken.jpg");
+        Files.writeString(original, "not an image");
+
+        StepVerifier.create(imageVariantService.generateVariants(original))
+            .verifyComplete();
+
+        assertFalse(Files.exists(imageDir.resolve("thumb").resolve("broken.jpg")));
+    }
+}
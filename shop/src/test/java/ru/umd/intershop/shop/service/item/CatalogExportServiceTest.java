@@ -0,0 +1,115 @@
+package ru.umd.intershop.shop.service.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"catalog.export.fetch-size=7", "catalog.export.chunk-size=10"})
+@Import(TestcontainersConfiguration.class)
+class CatalogExportServiceTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+        itemRepository.saveAll(
+            IntStream.range(0, 25)
+                .mapToObj(i -> ItemEntity.builder()
+                    .name("Item " + i)
+                    .description(i == 0 ? "Line one\nline \"two\", three" : "Description " + i)
+                    .price(new BigDecimal("1.50").add(BigDecimal.valueOf(i)))
+                    .imageFileName(i + ".jpg")
+                    .isActive(i != 24)
+                    .build())
+                .toList()
+        ).then().block();
+    }
+
+    @Test
+    public void testNdjsonExportStreamsAllActiveItemsInChunks() {
+        List<byte[]> chunks = catalogExportService.export(ExportFormatEnum.NDJSON, false).collectList().block();
+
+        // 24 активных товара по 10 строк во фрагменте
+        assertEquals(3, chunks.size());
+        String[] lines = new String(concat(chunks), StandardCharsets.UTF_8).split("\n");
+        assertEquals(24, lines.length);
+        assertTrue(lines[0].startsWith("{"));
+        assertTrue(lines[0].contains("\"name\":\"Item 0\""));
+        assertTrue(lines[23].contains("\"name\":\"Item 23\""));
+        // В выгрузку попадают только поля, которые читает импорт
+        assertTrue(lines[0].contains("\"isActive\":true"));
+        assertFalse(lines[0].contains("imagePath"));
+    }
+
+    @Test
+    public void testGzipCsvExportDecompressesToQuotedCsv() throws IOException {
+        List<byte[]> chunks = catalogExportService.export(ExportFormatEnum.CSV, true).collectList().block();
+
+        String csv = gunzip(concat(chunks));
+        assertTrue(csv.startsWith("id,name,description,price,imageFileName,isActive\n"));
+        assertTrue(csv.contains(",Item 0,\"Line one\nline \"\"two\"\", three\",1.50,0.jpg,true\n"));
+        assertTrue(csv.contains(",Item 23,Description 23,24.50,23.jpg,true\n"));
+        assertFalse(csv.contains("Item 24"));
+    }
+
+    @Test
+    public void testGzipChunksAreFlushedIndependently() throws IOException {
+        List<byte[]> chunks = catalogExportService.export(ExportFormatEnum.NDJSON, true).collectList().block();
+
+        // Первый фрагмент распаковывается без остальных: данные не задерживаются в буфере компрессора
+        String firstChunk = gunzipPrefix(chunks.get(0));
+        assertEquals(10, firstChunk.split("\n").length);
+    }
+
+    private static byte[] concat(List<byte[]> chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunks.forEach(out::writeBytes);
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Распаковывает начало gzip-потока без завершающего блока
+     */
+    private static String gunzipPrefix(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        } catch (EOFException e) {
+            // Поток ещё не завершён, всё сброшенное уже прочитано
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
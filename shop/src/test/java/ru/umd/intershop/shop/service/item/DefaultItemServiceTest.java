@@ -12,6 +12,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
 import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
 import ru.umd.intershop.shop.data.entity.ItemEntity;
 import ru.umd.intershop.shop.data.repository.ItemRepository;
 import ru.umd.intershop.shop.service.dto.ItemDto;
@@ -20,6 +21,8 @@ import ru.umd.intershop.shop.service.exception.NotFoundException;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -34,10 +37,18 @@ class DefaultItemServiceTest {
     @Autowired
     private DefaultItemService defaultItemService;
 
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    @Autowired
+    private ItemCacheWarmup itemCacheWarmup;
+
     @BeforeEach
     public void setUp() {
         // Очищаем данные перед каждым тестом.
         itemRepository.deleteAll().block();
+        // Новое поколение каталога отсекает страницы и счётчики, закэшированные предыдущими тестами
+        catalogGeneration.increment().block();
     }
 
     @Test
@@ -141,4 +152,210 @@ class DefaultItemServiceTest {
             })
             .verifyComplete();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindAllActiveWithTrigramSearchRanksByRelevance() {
+        ItemEntity armchair = ItemEntity.builder()
+            .name("Armchair")
+            .description("Soft armchair")
+            .price(new BigDecimal("30.00"))
+            .imageFileName("5.jpg")
+            .isActive(true)
+            .build();
+        ItemEntity chair = ItemEntity.builder()
+            .name("Chair")
+            .description("Wooden chair")
+            .price(new BigDecimal("25.00"))
+            .imageFileName("6.jpg")
+            .isActive(true)
+            .build();
+        ItemEntity table = ItemEntity.builder()
+            .name("Table")
+            .description("Kitchen table")
+            .price(new BigDecimal("40.00"))
+            .imageFileName("7.jpg")
+            .isActive(true)
+            .build();
+        itemRepository.saveAll(Arrays.asList(armchair, chair, table)).collectList().block();
+
+        Mono<ItemPageDto> result = defaultItemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.NO, "chair");
+
+        StepVerifier.create(result)
+            .assertNext(page -> {
+                assertEquals(2, page.getTotalItems(), "Должно быть найдено два товара");
+                assertEquals("Chair", page.getItemList().get(0).getName(), "Точное совпадение должно быть первым");
+                assertEquals("Armchair", page.getItemList().get(1).getName());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testFindAllActiveFiltersByTooShortSearch() {
+        ItemEntity entity1 = ItemEntity.builder()
+            .name("Lamp")
+            .description("Desk lamp")
+            .price(new BigDecimal("12.00"))
+            .imageFileName("8.jpg")
+            .isActive(true)
+            .build();
+        ItemEntity entity2 = ItemEntity.builder()
+            .name("Sofa")
+            .description("Big sofa")
+            .price(new BigDecimal("90.00"))
+            .imageFileName("9.jpg")
+            .isActive(true)
+            .build();
+        ItemEntity entity3 = ItemEntity.builder()
+            .name("Floor lamp")
+            .description("Tall lamp")
+            .price(new BigDecimal("40.00"))
+            .imageFileName("10.jpg")
+            .isActive(true)
+            .build();
+        List<ItemEntity> saved = itemRepository.saveAll(Arrays.asList(entity1, entity2, entity3)).collectList().block();
+
+        // Запрос короче триграммы ищется по вхождению подстроки в порядке сортировки
+        Mono<ItemPageDto> result = defaultItemService.findAllActive(PageRequest.of(0, 5), ItemSortingEnum.PRICE, "La");
+
+        StepVerifier.create(result)
+            .assertNext(page -> {
+                assertEquals(2, page.getTotalItems(), "Короткий запрос должен фильтровать товары");
+                assertEquals(List.of("Lamp", "Floor lamp"), page.getItemList().stream().map(ItemDto::getName).toList());
+            })
+            .verifyComplete();
+
+        StepVerifier.create(defaultItemService.findAllActive(PageRequest.of(0, 5), ItemSortingEnum.NO, "La"))
+            .assertNext(page -> assertEquals(
+                List.of(saved.get(0).getId(), saved.get(2).getId()),
+                page.getItemList().stream().map(ItemDto::getId).toList()
+            ))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testFindAllActiveByCursorWalksPagesInSortOrder() {
+        List<ItemEntity> entities = Stream.of("Echo", "Alpha", "Delta", "Charlie", "Bravo")
+            .map(name -> ItemEntity.builder()
+                .name(name)
+                .description(name + " description")
+                .price(new BigDecimal("1.00"))
+                .imageFileName(name + ".jpg")
+                .isActive(true)
+                .build())
+            .toList();
+        itemRepository.saveAll(entities).collectList().block();
+
+        ItemPageDto firstPage = defaultItemService.findAllActive(PageRequest.of(0, 2), ItemSortingEnum.ALPHA, null)
+            .block();
+        assertNotNull(firstPage);
+        assertEquals(List.of("Alpha", "Bravo"), firstPage.getItemList().stream().map(ItemDto::getName).toList());
+        assertNotNull(firstPage.getNextCursor(), "Первая страница должна содержать курсор следующей");
+
+        ItemPageDto secondPage = defaultItemService
+            .findAllActiveByCursor(firstPage.getNextCursor(), 2, ItemSortingEnum.ALPHA)
+            .block();
+        assertNotNull(secondPage);
+        assertEquals(1, secondPage.getPage());
+        assertEquals(List.of("Charlie", "Delta"), secondPage.getItemList().stream().map(ItemDto::getName).toList());
+
+        ItemPageDto backToFirst = defaultItemService
+            .findAllActiveByCursor(secondPage.getPreviousCursor(), 2, ItemSortingEnum.ALPHA)
+            .block();
+        assertNotNull(backToFirst);
+        assertEquals(0, backToFirst.getPage());
+        assertEquals(List.of("Alpha", "Bravo"), backToFirst.getItemList().stream().map(ItemDto::getName).toList());
+    }
+
+    @Test
+    public void testFindByIdsPreservesOrderForCachedAndLoadedItems() {
+        List<ItemEntity> saved = itemRepository.saveAll(
+                Stream.of("First", "Second", "Third")
+                    .map(name -> ItemEntity.builder()
+                        .name(name)
+                        .description(name + " description")
+                        .price(new BigDecimal("3.00"))
+                        .imageFileName(name + ".jpg")
+                        .isActive(true)
+                        .build())
+                    .toList()
+            )
+            .collectList()
+            .block();
+        assertNotNull(saved);
+
+        // Второй товар попадает в кэш заранее, остальные будут дочитаны из БД
+        defaultItemService.findById(saved.get(1).getId()).block();
+
+        List<Long> requestedIds = List.of(saved.get(2).getId(), saved.get(0).getId(), saved.get(1).getId());
+
+        StepVerifier.create(defaultItemService.findByIds(requestedIds).map(ItemDto::getId).collectList())
+            .assertNext(ids -> assertEquals(requestedIds, ids, "Порядок товаров должен совпадать с запрошенным"))
+            .verifyComplete();
+
+        StepVerifier.create(defaultItemService.findByIds(requestedIds).map(ItemDto::getName).collectList())
+            .assertNext(names -> assertEquals(List.of("Third", "First", "Second"), names))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testFindAllActiveWithTrigramSearchReturnsTotalBeyondPage() {
+        List<ItemEntity> lamps = Stream.of("Desk Lamp", "Floor Lamp", "Wall Lamp")
+            .map(name -> ItemEntity.builder()
+                .name(name)
+                .description(name)
+                .price(new BigDecimal("15.00"))
+                .imageFileName("lamp.jpg")
+                .isActive(true)
+                .build())
+            .toList();
+        itemRepository.saveAll(lamps).collectList().block();
+
+        // Общее число приходит оконным агрегатом вместе со страницей
+        StepVerifier.create(defaultItemService.findAllActive(PageRequest.of(1, 2), ItemSortingEnum.ALPHA, "lamp"))
+            .assertNext(page -> {
+                assertEquals(3, page.getTotalItems());
+                assertEquals(2, page.getTotalPages());
+                assertEquals(List.of("Wall Lamp"), page.getItemList().stream().map(ItemDto::getName).toList());
+            })
+            .verifyComplete();
+
+        // За пределами выборки строк нет, и общее число считается отдельным запросом
+        StepVerifier.create(defaultItemService.findAllActive(PageRequest.of(5, 2), ItemSortingEnum.ALPHA, "lamp"))
+            .assertNext(page -> {
+                assertEquals(3, page.getTotalItems());
+                assertEquals(0, page.getItemList().size());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testWarmUpCachesFirstPageForEverySort() {
+        itemRepository.save(ItemEntity.builder()
+                                .name("Warm Item")
+                                .description("Warm")
+                                .price(new BigDecimal("5.00"))
+                                .imageFileName("warm.jpg")
+                                .isActive(true)
+                                .build()).block();
+
+        itemCacheWarmup.warmUp().block();
+
+        // Товар добавлен в обход сервиса администрирования: прогретые страницы о нём не знают
+        itemRepository.save(ItemEntity.builder()
+                                .name("Cold Item")
+                                .description("Cold")
+                                .price(new BigDecimal("6.00"))
+                                .imageFileName("cold.jpg")
+                                .isActive(true)
+                                .build()).block();
+
+        for (ItemSortingEnum sort : ItemSortingEnum.values()) {
+            StepVerifier.create(defaultItemService.findAllActive(PageRequest.of(0, 10), sort, null))
+                .assertNext(page -> assertEquals(
+                    List.of("Warm Item"),
+                    page.getItemList().stream().map(ItemDto::getName).toList()
+                ))
+                .verifyComplete();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ru.umd.intershop.shop.service.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.dto.ItemDto;
+import ru.umd.intershop.shop.service.dto.ItemPageDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = "catalog.engine.mode=MEMORY")
+@Import(TestcontainersConfiguration.class)
+class InMemoryCatalogTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private InMemoryCatalog inMemoryCatalog;
+
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+        catalogGeneration.increment().block();
+    }
+
+    @Test
+    public void testFindAllActiveServedFromInMemoryCatalog() {
+        List<ItemEntity> saved = saveItems("Oak Table", "Pine Table", "Oak Chair");
+        inMemoryCatalog.reload().block();
+
+        StepVerifier.create(itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.ALPHA, "oak"))
+            .assertNext(page -> {
+                assertEquals(2, page.getTotalItems());
+                assertEquals(List.of("Oak Chair", "Oak Table"), names(page));
+            })
+            .verifyComplete();
+
+        // Удаление в обход сервисов не видно каталогу в памяти, пока не сменится поколение
+        itemRepository.deleteById(saved.get(0).getId()).block();
+        StepVerifier.create(itemService.findAllActive(PageRequest.of(1, 2), ItemSortingEnum.PRICE, null))
+            .assertNext(page -> {
+                assertEquals(3, page.getTotalItems());
+                assertEquals(1, page.getItemList().size());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testAlphaPagesFromMemoryContinueInDatabase() {
+        // Регистр и порядок символов в UTF-16 расходятся с правилами сравнения строк в БД
+        saveItems("Fig", "apple", "Date", "Banana", "eclair", "cherry");
+        inMemoryCatalog.reload().block();
+
+        List<String> databaseOrder = seekNames(null, null, 10);
+
+        ItemPageDto firstPage = itemService.findAllActive(PageRequest.of(0, 3), ItemSortingEnum.ALPHA, null).block();
+        assertNotNull(firstPage);
+        assertEquals(databaseOrder.subList(0, 3), names(firstPage));
+
+        // Курсор страницы из памяти продолжается выборкой из БД без пропусков и повторов
+        ItemPageCursor cursor = ItemPageCursor.decode(firstPage.getNextCursor());
+        assertEquals(databaseOrder.subList(3, 6), seekNames(cursor.typedSortValue(), cursor.id(), 3));
+
+        StepVerifier.create(itemService.findAllActiveByCursor(firstPage.getNextCursor(), 3, ItemSortingEnum.ALPHA))
+            .assertNext(page -> assertEquals(databaseOrder.subList(3, 6), names(page)))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testAppliedItemTakesDatabasePositionByName() {
+        saveItems("apple", "cherry", "Date");
+        inMemoryCatalog.reload().block();
+
+        ItemEntity banana = saveItems("Banana").get(0);
+        long generation = catalogGeneration.increment().block();
+        inMemoryCatalog.apply(banana, generation).block();
+
+        StepVerifier.create(itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.ALPHA, null))
+            .assertNext(page -> assertEquals(seekNames(null, null, 10), names(page)))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testSearchRankingMatchesDatabaseWordSimilarity() {
+        // Симметричное сходство ставит Armchair выше длинного названия, word_similarity - наоборот
+        saveItems("Chair", "Armchair", "Chair cover extra large");
+        inMemoryCatalog.reload().block();
+
+        List<String> expected = List.of("Chair", "Chair cover extra large", "Armchair");
+
+        StepVerifier.create(itemRepository.searchActivePageByName("chair", ItemSortingEnum.NO, PageRequest.of(0, 10)))
+            .assertNext(page -> assertEquals(expected, page.items().stream().map(ItemEntity::getName).toList()))
+            .verifyComplete();
+        StepVerifier.create(itemService.findAllActive(PageRequest.of(0, 10), ItemSortingEnum.NO, "chair"))
+            .assertNext(page -> assertEquals(expected, names(page)))
+            .verifyComplete();
+    }
+
+    private List<String> seekNames(Object sortValue, Long id, int limit) {
+        return itemRepository
+            .seekActive(ItemSortingEnum.ALPHA, sortValue, id, true, limit)
+            .map(ItemEntity::getName)
+            .collectList()
+            .block();
+    }
+
+    private static List<String> names(ItemPageDto page) {
+        return page.getItemList().stream().map(ItemDto::getName).toList();
+    }
+
+    private List<ItemEntity> saveItems(String... names) {
+        return itemRepository.saveAll(
+                Stream.of(names)
+                    .map(name -> ItemEntity.builder()
+                        .name(name)
+                        .description(name)
+                        .price(new BigDecimal(name.length()))
+                        .imageFileName("memory.jpg")
+                        .isActive(true)
+                        .build())
+                    .toList()
+            )
+            .collectList()
+            .block();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.umd.intershop.shop.service.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.dto.ItemDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "cache.page.mode=FULL")
+@Import(TestcontainersConfiguration.class)
+class ItemPageCacheRefreshTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private DefaultItemService defaultItemService;
+
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+        catalogGeneration.increment().block();
+    }
+
+    @Test
+    public void testUpdateItemInPageCacheRewritesCachedPagesInPlace() {
+        ItemEntity kettle = itemRepository.save(item("Kettle", "Electric kettle")).block();
+        itemRepository.save(item("Mug", "Ceramic mug")).block();
+
+        // Первые запросы кладут страницы в кэш и регистрируют их в обратном индексе
+        defaultItemService.findAllActive(PageRequest.of(0, 5), ItemSortingEnum.NO, null).block();
+        defaultItemService.findAllActive(PageRequest.of(0, 5), ItemSortingEnum.ALPHA, null).block();
+        long generationBefore = catalogGeneration.current().block();
+
+        kettle.setDescription("Steel kettle");
+        itemRepository.save(kettle).block();
+
+        // Без обновления кэша страница отдаёт прежнее описание
+        StepVerifier.create(defaultItemService.findAllActive(PageRequest.of(0, 5), ItemSortingEnum.NO, null))
+            .assertNext(page -> assertEquals("Electric kettle", descriptionOf(page.getItemList(), kettle.getId())))
+            .verifyComplete();
+
+        defaultItemService.updateItemInPageCache(ItemDto.builder()
+            .id(kettle.getId())
+            .name(kettle.getName())
+            .description(kettle.getDescription())
+            .price(kettle.getPrice())
+            .imageFileName(kettle.getImageFileName())
+            .build()).block();
+
+        for (ItemSortingEnum sort : List.of(ItemSortingEnum.NO, ItemSortingEnum.ALPHA)) {
+            StepVerifier.create(defaultItemService.findAllActive(PageRequest.of(0, 5), sort, null))
+                .assertNext(page -> {
+                    assertEquals(2, page.getTotalItems());
+                    assertEquals("Steel kettle", descriptionOf(page.getItemList(), kettle.getId()));
+                })
+                .verifyComplete();
+        }
+        assertEquals(generationBefore, catalogGeneration.current().block(), "Поколение каталога не должно меняться");
+    }
+
+    private static ItemEntity item(String name, String description) {
+        return ItemEntity.builder()
+            .name(name)
+            .description(description)
+            .price(new BigDecimal("35.00"))
+            .imageFileName(name.toLowerCase() + ".jpg")
+            .isActive(true)
+            .build();
+    }
+
+    private static String descriptionOf(List<ItemDto> items, Long id) {
+        return items.stream().filter(item -> item.getId().equals(id)).findFirst().orElseThrow().getDescription();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.umd.intershop.shop.service.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.common.constant.ItemSortingEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.CatalogGeneration;
+import ru.umd.intershop.shop.data.entity.ItemEntity;
+import ru.umd.intershop.shop.data.repository.ItemRepository;
+import ru.umd.intershop.shop.service.dto.ItemPageDto;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Мягкий TTL страниц сокращён до секунды в отдельном контексте, чтобы не влиять на остальные тесты
+ */
+@SpringBootTest(properties = "cache.ttl.items-page-soft=1")
+@Import(TestcontainersConfiguration.class)
+class StaleItemPageCacheTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private CatalogGeneration catalogGeneration;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll().block();
+        catalogGeneration.increment().block();
+    }
+
+    @Test
+    public void testFindAllActiveServesStalePageAndRefreshesItInBackground() throws InterruptedException {
+        saveItem("Stale One", "1.00");
+
+        Pageable pageable = PageRequest.of(0, 7);
+        StepVerifier.create(itemService.findAllActive(pageable, ItemSortingEnum.PRICE, null))
+            .assertNext(page -> assertEquals(1, page.getTotalItems()))
+            .verifyComplete();
+
+        // Товар добавлен в обход сервиса администрирования, поэтому закэшированная страница о нём не знает
+        saveItem("Stale Two", "2.00");
+        Thread.sleep(1_100);
+
+        // Устаревшая страница отдаётся сразу, а обновление уходит в фон
+        StepVerifier.create(itemService.findAllActive(pageable, ItemSortingEnum.PRICE, null))
+            .assertNext(page -> assertEquals(1, page.getTotalItems()))
+            .verifyComplete();
+
+        // Обновлённая страница пересчитывает и общее число товаров, а не берёт его из кэша поколения
+        Mono<ItemPageDto> refreshed = Mono.defer(() -> itemService.findAllActive(pageable, ItemSortingEnum.PRICE, null))
+            .filter(page -> page.getTotalItems() == 2)
+            .repeatWhenEmpty(repeats -> repeats.take(20).delayElements(Duration.ofMillis(100)));
+
+        StepVerifier.create(refreshed)
+            .assertNext(page -> assertEquals(2, page.getItemList().size()))
+            .verifyComplete();
+    }
+
+    private void saveItem(String name, String price) {
+        itemRepository.save(ItemEntity.builder()
+                                .name(name)
+                                .description(name)
+                                .price(new BigDecimal(price))
+                                .imageFileName(name + ".jpg")
+                                .isActive(true)
+                                .build()).block();
+    }
+}
@@ -14,7 +14,10 @@ import ru.umd.intershop.shop.common.constant.OrderStatusEnum;
 import ru.umd.intershop.shop.config.TestcontainersConfiguration;
 import ru.umd.intershop.shop.data.entity.*;
 import ru.umd.intershop.shop.data.repository.*;
+import ru.umd.intershop.shop.service.dto.CheckoutDto;
 import ru.umd.intershop.shop.service.dto.OrderDto;
+import ru.umd.intershop.shop.service.exception.CartItemUnavailableException;
+import ru.umd.intershop.shop.service.exception.CheckoutTotalChangedException;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -24,6 +27,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @Import(TestcontainersConfiguration.class)
 public class DefaultOrderServiceTest {
+    private static final String SESSION_ID = "0123456789abcdef0123456789abcdef";
+
+    private static final String OTHER_SESSION_ID = "fedcba9876543210fedcba9876543210";
 
     @Autowired
     private OrderRepository orderRepository;
@@ -68,45 +74,85 @@ public class DefaultOrderServiceTest {
     }
 
     @Test
-    public void testFindAllCompleted() {
-        OrderEntity order1 = OrderEntity.builder()
-            .status(OrderStatusEnum.COMPLETED.name())
-            .totalPrice(new BigDecimal("100.00"))
-            .build();
-        OrderEntity order2 = OrderEntity.builder()
-            .status(OrderStatusEnum.COMPLETED.name())
-            .totalPrice(new BigDecimal("200.00"))
-            .build();
-        OrderEntity order3 = OrderEntity.builder()
+    public void testFindCompletedPage() {
+        ItemEntity kettle = itemRepository.save(ItemEntity.builder()
+            .name("Kettle")
+            .price(new BigDecimal("15.00"))
+            .isActive(true)
+            .build()).block();
+        ItemEntity mug = itemRepository.save(ItemEntity.builder()
+            .name("Mug")
+            .price(new BigDecimal("4.50"))
+            .isActive(true)
+            .build()).block();
+
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(OrderEntity.builder()
+                .status(OrderStatusEnum.COMPLETED.name())
+                .totalPrice(new BigDecimal(i + "00.00"))
+                .build());
+        }
+        orders.add(OrderEntity.builder()
             .status(OrderStatusEnum.NEW.name())
-            .totalPrice(new BigDecimal("300.00"))
-            .build();
-        orderRepository.saveAll(Arrays.asList(order1, order2, order3))
-            .collectList().block();
+            .totalPrice(BigDecimal.ZERO)
+            .build());
+        orders = orderRepository.saveAll(orders).collectList().block();
+
+        // Все заказы истории содержат кружку, часть из них - ещё и чайник
+        List<OrderItemEntity> lines = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(OrderItemEntity.builder().orderId(orders.get(i).getId()).itemId(mug.getId()).count(i + 1).build());
+            if (i % 2 == 0) {
+                lines.add(OrderItemEntity.builder().orderId(orders.get(i).getId()).itemId(kettle.getId()).count(1).build());
+            }
+        }
+        orderItemRepository.saveAll(lines).blockLast();
 
-        Flux<OrderDto> completedOrders = orderService.findAllCompleted();
+        List<Long> completedIds = orders.subList(0, 5).stream().map(OrderEntity::getId).toList();
 
-        StepVerifier.create(completedOrders.collectList())
-            .assertNext(list -> {
-                assertEquals(2, list.size(), "Должно быть 2 завершённых заказа");
-                list.forEach(dto -> assertEquals(OrderStatusEnum.COMPLETED, dto.getStatus()));
+        StepVerifier.create(orderService.findCompleted(0, 2))
+            .assertNext(page -> {
+                assertTrue(page.isHasNext());
+                assertEquals(List.of(completedIds.get(4), completedIds.get(3)),
+                             page.getOrderList().stream().map(OrderDto::getId).toList());
+                OrderDto newest = page.getOrderList().get(0);
+                assertEquals(2, newest.getItems().size());
+                assertEquals(5, newest.getItems().stream()
+                    .filter(line -> line.getItem().getName().equals("Mug"))
+                    .findFirst().orElseThrow().getCount());
+                assertEquals(1, page.getOrderList().get(1).getItems().size());
             })
             .verifyComplete();
+
+        StepVerifier.create(orderService.findCompleted(2, 2))
+            .assertNext(page -> {
+                assertFalse(page.isHasNext(), "Последняя страница");
+                assertEquals(List.of(completedIds.get(0)), page.getOrderList().stream().map(OrderDto::getId).toList());
+                assertEquals(OrderStatusEnum.COMPLETED, page.getOrderList().get(0).getStatus());
+            })
+            .verifyComplete();
+
+        StepVerifier.create(orderService.findCompleted(3, 2))
+            .assertNext(page -> assertTrue(page.getOrderList().isEmpty()))
+            .verifyComplete();
     }
 
     @Test
     public void testGetCartWhenNotExists() {
-        // Если заказ с статусом NEW отсутствует, getCart должен создать новый
-        Mono<OrderDto> cartMono = orderService.getCart();
+        // Если заказ с статусом NEW отсутствует, getCart возвращает пустую корзину, не создавая строку
+        Mono<OrderDto> cartMono = orderService.getCart(SESSION_ID);
 
         StepVerifier.create(cartMono)
             .assertNext(cart -> {
                 assertNotNull(cart, "Корзина не должна быть null");
+                assertNull(cart.getId(), "Несозданная корзина не должна иметь id");
                 assertEquals(OrderStatusEnum.NEW, cart.getStatus(), "Новый заказ должен иметь статус NEW");
-                assertEquals(BigDecimal.ZERO, cart.getTotalPrice(), "Новый заказ должен иметь totalPrice = 0");
+                assertEquals(0, BigDecimal.ZERO.compareTo(cart.getTotalPrice()), "Новый заказ должен иметь totalPrice = 0");
                 assertTrue(cart.getItems().isEmpty(), "В новом заказе не должно быть товаров");
             })
             .verifyComplete();
+        assertEquals(0L, orderRepository.count().block(), "Просмотр корзины не должен создавать заказ");
     }
 
     @Test
@@ -122,10 +168,10 @@ public class DefaultOrderServiceTest {
         item = itemRepository.save(item).block();
 
         // Вызов PLUS – товар должен добавиться в корзину через создание OrderItemEntity
-        orderService.updateItemCount(item.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
 
         // Получаем корзину (заказ со статусом NEW)
-        OrderEntity cart = orderRepository.findLastByStatus(OrderStatusEnum.NEW.name())
+        OrderEntity cart = orderRepository.findBySessionIdAndStatus(SESSION_ID, OrderStatusEnum.NEW.name())
             .blockOptional()
             .orElseThrow(() -> new RuntimeException("Корзина не найдена"));
         // Извлекаем OrderItemEntity по orderId
@@ -136,8 +182,8 @@ public class DefaultOrderServiceTest {
         assertEquals(1, orderItem.getCount(), "Количество должно быть 1 после первого PLUS");
 
         // Вызов MINUS – количество должно уменьшиться до 0 (но OrderItemEntity остается)
-        orderService.updateItemCount(item.getId(), CartItemAction.MINUS).block();
-        cart = orderRepository.findLastByStatus(OrderStatusEnum.NEW.name())
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.MINUS).block();
+        cart = orderRepository.findBySessionIdAndStatus(SESSION_ID, OrderStatusEnum.NEW.name())
             .blockOptional()
             .orElseThrow();
         orderItems = orderItemRepository.findAllByOrderIdOrderByIdDesc(cart.getId())
@@ -147,8 +193,8 @@ public class DefaultOrderServiceTest {
         assertEquals(0, orderItem.getCount(), "Количество должно стать 0 после MINUS");
 
         // Вызов DELETE – OrderItemEntity должен быть удален
-        orderService.updateItemCount(item.getId(), CartItemAction.DELETE).block();
-        cart = orderRepository.findLastByStatus(OrderStatusEnum.NEW.name())
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.DELETE).block();
+        cart = orderRepository.findBySessionIdAndStatus(SESSION_ID, OrderStatusEnum.NEW.name())
             .blockOptional()
             .orElseThrow();
         orderItems = orderItemRepository.findAllByOrderIdOrderByIdDesc(cart.getId())
@@ -169,12 +215,14 @@ public class DefaultOrderServiceTest {
         item = itemRepository.save(item).block();
 
         // Добавляем товар дважды (каждый вызов PLUS увеличивает количество на 1)
-        orderService.updateItemCount(item.getId(), CartItemAction.PLUS).block();
-        orderService.updateItemCount(item.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
 
-        // Обработка корзины: вычисляется totalPrice и статус меняется на COMPLETED
-        Mono<Long> processedOrderIdMono = orderService.processCart();
-        Long processedOrderId = processedOrderIdMono.block();
+        // Подготовка считает сумму к оплате, оформление записывает её и меняет статус на COMPLETED
+        CheckoutDto checkout = orderService.prepareCheckout(SESSION_ID).block();
+        assertNotNull(checkout);
+        assertEquals(new BigDecimal("20.00"), checkout.getTotalPrice());
+        Long processedOrderId = orderService.processCart(SESSION_ID, checkout).block();
 
         OrderEntity processedOrder = orderRepository.findById(processedOrderId)
             .blockOptional()
@@ -183,4 +231,185 @@ public class DefaultOrderServiceTest {
         // Ожидаем totalPrice = 10.00 * 2 = 20.00
         assertEquals(new BigDecimal("20.00"), processedOrder.getTotalPrice());
     }
+
+    @Test
+    public void testProcessCartRecordsPreparedTotal() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+
+        CheckoutDto checkout = orderService.prepareCheckout(SESSION_ID).block();
+        Long orderId = orderService.processCart(SESSION_ID, checkout).block();
+
+        assertEquals(checkout.getOrderId(), orderId);
+        assertEquals(new BigDecimal("20.00"), orderRepository.findById(orderId).block().getTotalPrice());
+    }
+
+    @Test
+    public void testProcessCartRejectsPriceChangedAfterPrepare() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+
+        CheckoutDto checkout = orderService.prepareCheckout(SESSION_ID).block();
+
+        // Цена изменилась между расчётом суммы и оформлением: заказ не оформляется
+        item.setPrice(new BigDecimal("99.00"));
+        itemRepository.save(item).block();
+
+        StepVerifier.create(orderService.processCart(SESSION_ID, checkout))
+            .expectError(CheckoutTotalChangedException.class)
+            .verify();
+        assertEquals(OrderStatusEnum.NEW.name(), orderRepository.findById(checkout.getOrderId()).block().getStatus());
+    }
+
+    @Test
+    public void testProcessCartRejectsCartChangedAfterPrepare() {
+        ItemEntity kettle = itemRepository.save(ItemEntity.builder()
+            .name("Kettle")
+            .price(new BigDecimal("15.00"))
+            .isActive(true)
+            .build()).block();
+        ItemEntity mug = itemRepository.save(ItemEntity.builder()
+            .name("Mug")
+            .price(new BigDecimal("5.00"))
+            .isActive(true)
+            .build()).block();
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+
+        CheckoutDto checkout = orderService.prepareCheckout(SESSION_ID).block();
+        assertEquals(new BigDecimal("15.00"), checkout.getTotalPrice());
+
+        // Товар добавлен в корзину из другой вкладки, пока шла оплата
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.PLUS).block();
+
+        StepVerifier.create(orderService.processCart(SESSION_ID, checkout))
+            .expectError(CheckoutTotalChangedException.class)
+            .verify();
+
+        // Корзина сохраняется целиком, повторное оформление считает её новую сумму
+        CheckoutDto retry = orderService.prepareCheckout(SESSION_ID).block();
+        assertEquals(checkout.getOrderId(), retry.getOrderId());
+        assertEquals(new BigDecimal("20.00"), retry.getTotalPrice());
+        assertEquals(retry.getOrderId(), orderService.processCart(SESSION_ID, retry).block());
+    }
+
+    @Test
+    public void testDoubleSubmitCompletesOrderOnce() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+
+        CheckoutDto checkout = orderService.prepareCheckout(SESSION_ID).block();
+
+        // Два одновременных оформления одного заказа: условие status = 'NEW' пропускает только одно
+        List<String> outcomes = Flux.range(0, 2)
+            .flatMap(i -> orderService.processCart(SESSION_ID, checkout)
+                .map(orderId -> "completed")
+                .onErrorResume(IllegalStateException.class, e -> Mono.just("rejected")))
+            .collectList()
+            .block();
+        assertEquals(List.of("completed", "rejected"), outcomes.stream().sorted().toList());
+
+        // Повторная отправка после оформления тоже отклоняется и не меняет заказ
+        StepVerifier.create(orderService.processCart(SESSION_ID, checkout))
+            .expectErrorSatisfies(e -> {
+                assertInstanceOf(IllegalStateException.class, e);
+                assertTrue(e.getMessage().contains("уже оформлен"));
+            })
+            .verify();
+        assertEquals(1L, orderRepository.findAllByStatus(OrderStatusEnum.COMPLETED.name()).count().block());
+    }
+
+    @Test
+    public void testPrepareCheckoutRejectsInactiveItems() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+
+        item.setIsActive(false);
+        itemRepository.save(item).block();
+
+        StepVerifier.create(orderService.prepareCheckout(SESSION_ID))
+            .expectError(CartItemUnavailableException.class)
+            .verify();
+    }
+
+    @Test
+    public void testCartsAreSeparatedBySession() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS).block();
+
+        StepVerifier.create(orderService.getCart(OTHER_SESSION_ID))
+            .assertNext(cart -> assertTrue(cart.getItems().isEmpty(), "Корзина другой сессии должна быть пуста"))
+            .verifyComplete();
+        StepVerifier.create(orderService.getCart(SESSION_ID))
+            .assertNext(cart -> assertEquals(1, cart.getItems().size()))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testConcurrentFirstUpdatesCreateSingleCart() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+
+        // Просмотры корзины ничего не создают
+        Flux.range(0, 8).flatMap(i -> orderService.getCart(SESSION_ID)).blockLast();
+        assertEquals(0L, orderRepository.count().block());
+
+        // Одновременные первые добавления сессии не должны создать несколько корзин
+        Flux.range(0, 8)
+            .flatMap(i -> orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS))
+            .blockLast();
+
+        assertEquals(1L, orderRepository.findAllByStatus(OrderStatusEnum.NEW.name()).count().block());
+        StepVerifier.create(orderService.getCart(SESSION_ID))
+            .assertNext(cart -> {
+                assertNotNull(cart.getId());
+                assertEquals(8, cart.getItems().get(0).getCount());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testConcurrentUpdatesKeepSingleLine() {
+        ItemEntity item = itemRepository.save(ItemEntity.builder()
+            .name("Test Item")
+            .price(new BigDecimal("10.00"))
+            .isActive(true)
+            .build()).block();
+
+        // Одновременные нажатия "+" не теряются и не создают повторных строк товара
+        Flux.range(0, 10)
+            .flatMap(i -> orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.PLUS))
+            .blockLast();
+        orderService.updateItemCount(SESSION_ID, item.getId(), CartItemAction.MINUS).block();
+
+        OrderEntity cart = orderRepository.findBySessionIdAndStatus(SESSION_ID, OrderStatusEnum.NEW.name()).block();
+        List<OrderItemEntity> orderItems = orderItemRepository.findAllByOrderIdOrderByIdDesc(cart.getId())
+            .collectList().block();
+        assertEquals(1, orderItems.size(), "Товар должен входить в корзину одной строкой");
+        assertEquals(9, orderItems.get(0).getCount());
+    }
 }
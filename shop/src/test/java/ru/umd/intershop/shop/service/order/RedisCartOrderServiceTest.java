@@ -0,0 +1,161 @@
+package ru.umd.intershop.shop.service.order;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.test.StepVerifier;
+import ru.umd.intershop.shop.common.constant.CartItemAction;
+import ru.umd.intershop.shop.common.constant.OrderStatusEnum;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+import ru.umd.intershop.shop.data.cache.CartStore;
+import ru.umd.intershop.shop.data.entity.*;
+import ru.umd.intershop.shop.data.repository.*;
+import ru.umd.intershop.shop.service.dto.CheckoutDto;
+import ru.umd.intershop.shop.service.dto.OrderItemDto;
+import ru.umd.intershop.shop.service.exception.CartItemUnavailableException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"cart.storage.mode=REDIS", "cart.storage.ttl=1h"})
+@Import(TestcontainersConfiguration.class)
+class RedisCartOrderServiceTest {
+    private static final String SESSION_ID = "0123456789abcdef0123456789abcdef";
+
+    private static final String CART_KEY = "cart:" + SESSION_ID;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @BeforeEach
+    public void setUp() {
+        orderItemRepository.deleteAll().block();
+        orderRepository.deleteAll().block();
+        itemRepository.deleteAll().block();
+        stringRedisTemplate.delete(CART_KEY).block();
+    }
+
+    @Test
+    public void testCartEditsDoNotTouchDatabase() {
+        ItemEntity kettle = saveItem("Kettle", "15.00");
+        ItemEntity mug = saveItem("Mug", "4.50");
+
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.PLUS).block();
+        // Количество не опускается ниже нуля
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.MINUS).block();
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.MINUS).block();
+
+        StepVerifier.create(orderService.getCart(SESSION_ID))
+            .assertNext(cart -> {
+                assertNull(cart.getId(), "Корзина не должна быть записана в БД");
+                assertEquals(OrderStatusEnum.NEW, cart.getStatus());
+                // Позиции упорядочены по убыванию id товара: сначала кружка, затем чайник
+                assertEquals(List.of(0, 2), cart.getItems().stream().map(OrderItemDto::getCount).toList());
+            })
+            .verifyComplete();
+
+        assertEquals(0L, orderRepository.count().block(), "Изменения корзины не должны создавать заказы");
+        Duration ttl = stringRedisTemplate.getExpire(CART_KEY).block();
+        assertNotNull(ttl);
+        assertTrue(ttl.compareTo(Duration.ZERO) > 0 && ttl.compareTo(Duration.ofHours(1)) <= 0, ttl.toString());
+
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.DELETE).block();
+        StepVerifier.create(orderService.getCart(SESSION_ID))
+            .assertNext(cart -> assertEquals(1, cart.getItems().size()))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testProcessCartWritesOrderAndClearsCart() {
+        ItemEntity kettle = saveItem("Kettle", "15.00");
+        ItemEntity mug = saveItem("Mug", "4.50");
+
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.PLUS).block();
+
+        CheckoutDto checkout = orderService.prepareCheckout(SESSION_ID).block();
+        assertNotNull(checkout);
+        assertEquals(new BigDecimal("24.00"), checkout.getTotalPrice());
+        Long orderId = orderService.processCart(SESSION_ID, checkout).block();
+
+        OrderEntity order = orderRepository.findById(orderId).block();
+        assertNotNull(order);
+        assertEquals(OrderStatusEnum.COMPLETED.name(), order.getStatus());
+        assertEquals(new BigDecimal("24.00"), order.getTotalPrice());
+        assertEquals(2L, orderItemRepository.findAllByOrderIdOrderByIdDesc(orderId).count().block());
+
+        assertEquals(Boolean.FALSE, stringRedisTemplate.hasKey(CART_KEY).block(), "Корзина должна быть очищена");
+        StepVerifier.create(orderService.getCart(SESSION_ID))
+            .assertNext(cart -> assertTrue(cart.getItems().isEmpty()))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testCheckoutRemovesOnlySnapshottedLines() {
+        ItemEntity kettle = saveItem("Kettle", "15.00");
+        ItemEntity mug = saveItem("Mug", "4.50");
+
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+        Map<Long, Integer> snapshot = cartStore.entries(SESSION_ID).block();
+
+        // Пока заказ оформляется, покупатель добавляет товары в корзину из другой вкладки
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.PLUS).block();
+        cartStore.removeCheckedOut(SESSION_ID, snapshot).block();
+
+        StepVerifier.create(cartStore.entries(SESSION_ID))
+            .assertNext(counts -> assertEquals(Map.of(kettle.getId(), 1, mug.getId(), 1), counts))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testPrepareCheckoutRejectsInactiveItems() {
+        ItemEntity kettle = saveItem("Kettle", "15.00");
+        ItemEntity mug = saveItem("Mug", "4.50");
+
+        orderService.updateItemCount(SESSION_ID, kettle.getId(), CartItemAction.PLUS).block();
+        orderService.updateItemCount(SESSION_ID, mug.getId(), CartItemAction.PLUS).block();
+        mug.setIsActive(false);
+        itemRepository.save(mug).block();
+
+        StepVerifier.create(orderService.prepareCheckout(SESSION_ID))
+            .expectError(CartItemUnavailableException.class)
+            .verify();
+        // Корзина не записывается в БД и остаётся в Redis целиком
+        assertEquals(0L, orderRepository.count().block());
+        assertEquals(2L, stringRedisTemplate.opsForHash().size(CART_KEY).block());
+    }
+
+    private ItemEntity saveItem(String name, String price) {
+        return itemRepository.save(ItemEntity.builder()
+            .name(name)
+            .price(new BigDecimal(price))
+            .isActive(true)
+            .build()).block();
+    }
+}
@@ -0,0 +1,131 @@
+package ru.umd.intershop.shop.web.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.umd.intershop.shop.config.TestcontainersConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@Import(TestcontainersConfiguration.class)
+class ImageResourceCachingTest {
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    static Path imageDir;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void imageProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.image-file-base-path", () -> imageDir.toString());
+    }
+
+    @BeforeAll
+    static void createImages() throws IOException {
+        Files.writeString(imageDir.resolve("item.jpg"), CONTENT, StandardCharsets.US_ASCII);
+        Files.createDirectories(imageDir.resolve("thumb"));
+        Files.writeString(imageDir.resolve("thumb").resolve("item.jpg"), "thumb", StandardCharsets.US_ASCII);
+        Files.writeString(imageDir.resolve("legacy.jpg"), CONTENT, StandardCharsets.US_ASCII);
+        Files.createDirectories(imageDir.resolve(".upload"));
+        Files.writeString(imageDir.resolve(".upload").resolve("upload-1.tmp"), CONTENT, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testImageIsCachedAsImmutableWithStrongEtag() {
+        HttpHeaders headers = webTestClient.get().uri("/images/item.jpg")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).isEqualTo(CONTENT)
+            .returnResult()
+            .getResponseHeaders();
+
+        String cacheControl = headers.getCacheControl();
+        assertNotNull(cacheControl);
+        assertTrue(cacheControl.contains("max-age=31536000"), cacheControl);
+        assertTrue(cacheControl.contains("immutable"), cacheControl);
+        assertTrue(cacheControl.contains("public"), cacheControl);
+
+        String etag = headers.getETag();
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\""), "ETag должен быть строгим: " + etag);
+
+        webTestClient.get().uri("/images/item.jpg")
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+    }
+
+    @Test
+    void testRangeRequestReturnsPartialContent() {
+        webTestClient.get().uri("/images/item.jpg")
+            .header(HttpHeaders.RANGE, "bytes=5-9")
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 5-9/" + CONTENT.length())
+            .expectBody(String.class).isEqualTo("56789");
+    }
+
+    @Test
+    void testVariantsHaveOwnEtags() {
+        String original = webTestClient.get().uri("/images/item.jpg")
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(String.class)
+            .getResponseHeaders()
+            .getETag();
+
+        webTestClient.get().uri("/images/thumb/item.jpg")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().value(HttpHeaders.ETAG, etag -> assertNotEquals(original, etag))
+            .expectBody(String.class).isEqualTo("thumb");
+    }
+
+    @Test
+    void testMissingVariantFallsBackToOriginalWithoutLongCaching() {
+        webTestClient.get().uri("/images/thumb/legacy.jpg")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .expectBody(String.class).isEqualTo(CONTENT);
+
+        assertEquals(HttpStatus.NOT_FOUND, webTestClient.get().uri("/images/thumb/missing.jpg")
+            .exchange()
+            .returnResult(String.class)
+            .getStatus());
+    }
+
+    @Test
+    void testUnfinishedUploadsAreNotServed() {
+        assertEquals(HttpStatus.NOT_FOUND, webTestClient.get().uri("/images/.upload/upload-1.tmp")
+            .exchange()
+            .returnResult(String.class)
+            .getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, webTestClient.get().uri("/images/thumb/.upload/upload-1.tmp")
+            .exchange()
+            .returnResult(String.class)
+            .getStatus());
+    }
+}
@@ -0,0 +1,61 @@
+package ru.umd.intershop.shop.web.controller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import ru.umd.intershop.shop.common.constant.ExportFormatEnum;
+import ru.umd.intershop.shop.service.item.CatalogExportService;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(CatalogExportController.class)
+public class CatalogExportControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private CatalogExportService catalogExportService;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "gzip                     | true",
+        "deflate, GZIP            | true",
+        "gzip;q=0.5               | true",
+        "*                        | true",
+        "identity                 | false",
+        "gzip;q=0                 | false",
+        "gzip; q=0.0              | false",
+        "gzip;q=0.000             | false",
+        "*;q=0                    | false",
+        "gzip;q=0, *              | false",
+        "*;q=0, gzip              | true",
+    })
+    void testExportNegotiatesGzipByWeight(String acceptEncoding, boolean gzip) {
+        when(catalogExportService.export(eq(ExportFormatEnum.NDJSON), anyBoolean()))
+            .thenReturn(Flux.just("{}\n".getBytes(StandardCharsets.UTF_8)));
+
+        WebTestClient.ResponseSpec response = webTestClient.get()
+            .uri("/items/export")
+            .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+            .exchange()
+            .expectStatus().isOk();
+
+        if (gzip) {
+            response.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else {
+            response.expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING);
+        }
+        verify(catalogExportService).export(ExportFormatEnum.NDJSON, gzip);
+    }
+}
@@ -71,7 +71,7 @@ public class ItemControllerTest {
             .totalPrice(BigDecimal.ZERO)
             .items(Collections.emptyList())
             .build();
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.getCart(anyString())).thenReturn(Mono.just(cartDto));
 
         webTestClient.get()
             .uri(uriBuilder -> uriBuilder.path("/main/items")
@@ -109,7 +109,7 @@ public class ItemControllerTest {
             .totalPrice(BigDecimal.ZERO)
             .items(Collections.emptyList())
             .build();
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.getCart(anyString())).thenReturn(Mono.just(cartDto));
 
         webTestClient.get().uri("/items/1")
             .exchange()
@@ -122,7 +122,7 @@ public class ItemControllerTest {
 
     @Test
     void testUpdateCartItem() {
-        when(orderService.updateItemCount(eq(1L), any(CartItemAction.class)))
+        when(orderService.updateItemCount(anyString(), eq(1L), any(CartItemAction.class)))
             .thenReturn(Mono.empty());
 
         webTestClient.post()
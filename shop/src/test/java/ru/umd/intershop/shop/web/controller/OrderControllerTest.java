@@ -6,13 +6,14 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.umd.intershop.client.api.PaymentsApi;
 import ru.umd.intershop.client.model.BalanceResponse;
 import ru.umd.intershop.client.model.PaymentRequest;
 import ru.umd.intershop.client.model.PaymentResponse;
 import ru.umd.intershop.shop.service.dto.*;
+import ru.umd.intershop.shop.service.exception.CartItemUnavailableException;
+import ru.umd.intershop.shop.service.exception.CheckoutTotalChangedException;
 import ru.umd.intershop.shop.service.order.OrderService;
 
 import java.math.BigDecimal;
@@ -21,6 +22,11 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = {OrderController.class})
@@ -62,16 +68,23 @@ public class OrderControllerTest {
     public void testOrders() {
         OrderDto orderDto = createTestOrderDto(100L, new BigDecimal("20.00"));
 
-        when(orderService.findAllCompleted()).thenReturn(Flux.just(orderDto));
+        when(orderService.findCompleted(1, 5)).thenReturn(Mono.just(OrderPageDto.builder()
+            .orderList(List.of(orderDto))
+            .page(1)
+            .pageSize(5)
+            .hasNext(true)
+            .build()));
 
         webTestClient.get()
-            .uri("/orders")
+            .uri("/orders?pageNumber=1&pageSize=5")
             .exchange()
             .expectStatus().isOk()
             .expectBody(String.class)
             .value(body -> {
                 assertTrue(body.contains("100"), "Ответ должен содержать id заказа 100");
                 assertTrue(body.contains("20.00"), "Ответ должен содержать сумму заказа 20.00");
+                assertTrue(body.contains("Страница: 1"), "Ответ должен содержать номер страницы");
+                assertTrue(body.contains("&gt;"), "Должна быть ссылка на следующую страницу");
             });
     }
 
@@ -104,7 +117,7 @@ public class OrderControllerTest {
         BalanceResponse balanceResponse = new BalanceResponse();
         balanceResponse.setBalance(50.00); // Достаточно средств
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.getCart(anyString())).thenReturn(Mono.just(cartDto));
         when(paymentsApi.getBalance()).thenReturn(Mono.just(balanceResponse));
 
         webTestClient.get()
@@ -134,7 +147,7 @@ public class OrderControllerTest {
         BalanceResponse balanceResponse = new BalanceResponse();
         balanceResponse.setBalance(50.00); // Недостаточно средств
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.getCart(anyString())).thenReturn(Mono.just(cartDto));
         when(paymentsApi.getBalance()).thenReturn(Mono.just(balanceResponse));
 
         webTestClient.get()
@@ -156,7 +169,7 @@ public class OrderControllerTest {
     public void testCartWithUnavailablePaymentService() {
         OrderDto cartDto = createTestOrderDto(200L, new BigDecimal("20.00"));
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.getCart(anyString())).thenReturn(Mono.just(cartDto));
         when(paymentsApi.getBalance()).thenReturn(Mono.error(new RuntimeException("Сервис недоступен")));
 
         webTestClient.get()
@@ -175,31 +188,33 @@ public class OrderControllerTest {
     // Тест для POST /buy с успешным платежом
     @Test
     public void testProcessOrderSuccess() {
-        OrderDto cartDto = createTestOrderDto(200L, new BigDecimal("20.00"));
+        CheckoutDto checkout = CheckoutDto.builder().orderId(200L).totalPrice(new BigDecimal("20.00")).build();
         PaymentResponse paymentResponse = new PaymentResponse();
         paymentResponse.setSuccess(true);
         paymentResponse.setRemainingBalance(30.00);
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.prepareCheckout(anyString())).thenReturn(Mono.just(checkout));
         when(paymentsApi.makePayment(any(PaymentRequest.class))).thenReturn(Mono.just(paymentResponse));
-        when(orderService.processCart()).thenReturn(Mono.just(300L));
+        when(orderService.processCart(anyString(), eq(checkout))).thenReturn(Mono.just(300L));
 
         webTestClient.post()
             .uri("/buy")
             .exchange()
             .expectStatus().is3xxRedirection()
             .expectHeader().valueEquals("Location", "/orders/300?isNew=true");
+        // Списывается сумма, посчитанная для заказа, а не сумма по ценам из кэша
+        verify(paymentsApi).makePayment(argThat(request -> request.getAmount() == 20.00));
     }
 
     // Тест для POST /buy с неуспешным платежом (отказано сервисом)
     @Test
     public void testProcessOrderFailure() {
-        OrderDto cartDto = createTestOrderDto(200L, new BigDecimal("20.00"));
+        CheckoutDto checkout = CheckoutDto.builder().orderId(200L).totalPrice(new BigDecimal("20.00")).build();
         PaymentResponse paymentResponse = new PaymentResponse();
         paymentResponse.setSuccess(false);
         paymentResponse.setRemainingBalance(10.00);
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.prepareCheckout(anyString())).thenReturn(Mono.just(checkout));
         when(paymentsApi.makePayment(any(PaymentRequest.class))).thenReturn(Mono.just(paymentResponse));
 
         webTestClient.post()
@@ -212,11 +227,11 @@ public class OrderControllerTest {
     // Тест для POST /buy с ошибкой "недостаточно средств" (HTTP 400)
     @Test
     public void testProcessOrderInsufficientFunds() {
-        OrderDto cartDto = createTestOrderDto(200L, new BigDecimal("20.00"));
+        CheckoutDto checkout = CheckoutDto.builder().orderId(200L).totalPrice(new BigDecimal("20.00")).build();
         WebClientResponseException badRequestException = WebClientResponseException.create(
             400, "Bad Request", null, null, null);
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.prepareCheckout(anyString())).thenReturn(Mono.just(checkout));
         when(paymentsApi.makePayment(any(PaymentRequest.class))).thenReturn(Mono.error(badRequestException));
 
         webTestClient.post()
@@ -226,12 +241,44 @@ public class OrderControllerTest {
             .expectHeader().valueEquals("Location", "/cart/items?paymentError=true");
     }
 
+    // Тест для POST /buy с неактивным товаром в корзине: оплата не запрашивается
+    @Test
+    public void testProcessOrderWithUnavailableItems() {
+        when(orderService.prepareCheckout(anyString())).thenReturn(Mono.error(new CartItemUnavailableException(List.of(1L))));
+
+        webTestClient.post()
+            .uri("/buy")
+            .exchange()
+            .expectStatus().is3xxRedirection()
+            .expectHeader().valueEquals("Location", "/cart/items?unavailableItems=true");
+        verify(paymentsApi, never()).makePayment(any(PaymentRequest.class));
+    }
+
+    // Тест для POST /buy с корзиной, изменившейся во время оплаты
+    @Test
+    public void testProcessOrderWithCartChangedAfterPayment() {
+        CheckoutDto checkout = CheckoutDto.builder().orderId(200L).totalPrice(new BigDecimal("20.00")).build();
+        PaymentResponse paymentResponse = new PaymentResponse();
+        paymentResponse.setSuccess(true);
+        paymentResponse.setRemainingBalance(30.00);
+
+        when(orderService.prepareCheckout(anyString())).thenReturn(Mono.just(checkout));
+        when(paymentsApi.makePayment(any(PaymentRequest.class))).thenReturn(Mono.just(paymentResponse));
+        when(orderService.processCart(anyString(), eq(checkout))).thenReturn(Mono.error(new CheckoutTotalChangedException(200L)));
+
+        webTestClient.post()
+            .uri("/buy")
+            .exchange()
+            .expectStatus().is3xxRedirection()
+            .expectHeader().valueEquals("Location", "/cart/items?cartChanged=true");
+    }
+
     // Тест для POST /buy с недоступным сервисом платежей
     @Test
     public void testProcessOrderServiceUnavailable() {
-        OrderDto cartDto = createTestOrderDto(200L, new BigDecimal("20.00"));
+        CheckoutDto checkout = CheckoutDto.builder().orderId(200L).totalPrice(new BigDecimal("20.00")).build();
 
-        when(orderService.getCart()).thenReturn(Mono.just(cartDto));
+        when(orderService.prepareCheckout(anyString())).thenReturn(Mono.just(checkout));
         when(paymentsApi.makePayment(any(PaymentRequest.class))).thenReturn(Mono.error(new RuntimeException("Сервис недоступен")));
 
         webTestClient.post()